@@ -0,0 +1,69 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.sim.Simulation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Starts the simulator's stand-in server for a benchmark. JMH runs each
+ * benchmark in its own JVM, so each benchmark gets a fresh server.
+ *
+ * @author James
+ */
+final class BenchmarkServer {
+    private BenchmarkServer() {
+    }
+
+    /**
+     * Starts the simulation, with no players online. The effect budget is
+     * turned off, so effects keep being sent however many times a benchmark
+     * plays them in a tick.
+     *
+     * @return The Simulation
+     * @throws IOException If the configuration couldn't be written
+     */
+    static Simulation start() throws IOException {
+        return start("easyjetpack-benchmarks", "effects:\n    budget: -1\n");
+    }
+
+    /**
+     * Starts the simulation, with no players online
+     *
+     * @param name   The name of the temporary folder config.yml is written to
+     * @param config The contents of config.yml
+     * @return The Simulation
+     * @throws IOException If the configuration couldn't be written
+     */
+    static Simulation start(String name, String config) throws IOException {
+        File dataFolder = new File(System.getProperty("java.io.tmpdir"), name);
+        if (!dataFolder.isDirectory() && !dataFolder.mkdirs()) {
+            throw new IOException("Could not create " + dataFolder);
+        }
+
+        FileWriter writer = new FileWriter(new File(dataFolder, "config.yml"));
+        try {
+            writer.write(config);
+        } finally {
+            writer.close();
+        }
+
+        Simulation simulation = Simulation.start(dataFolder);
+        simulation.removePlayers();
+        return simulation;
+    }
+
+    /**
+     * Moves the server on a tick, so anything cached for the tick the players
+     * joined on is trusted.
+     *
+     * @param simulation The Simulation
+     * @param ticks      How many ticks to run
+     */
+    static void settle(Simulation simulation, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            simulation.getServer().getScheduler().tick();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.JetpackManager;
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import net.jselby.ej.api.JetpackEvent;
+import net.jselby.ej.sim.SimInventory;
+import net.jselby.ej.sim.SimPlayer;
+import net.jselby.ej.sim.Simulation;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JetpackManager.onJetpackEvent() finding the Jetpack a player is
+ * wearing, as more Jetpacks are registered. The player wears Jetpacks which
+ * do nothing, and which were registered last.
+ *
+ * @author James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final FlightTypes[] RESPONDING = {FlightTypes.CROUCH, FlightTypes.INTERACT,
+            FlightTypes.FALLING, FlightTypes.DAMAGED_BY_MOB};
+
+    /**
+     * How many Jetpacks are registered on top of the built-in ones
+     */
+    @Param({"0", "16", "64"})
+    public int extraJetpacks;
+
+    /**
+     * Which events are passed in: only crouching, only interacting, or every
+     * type, most of which nothing worn responds to
+     */
+    @Param({"crouch", "interact", "mixed"})
+    public String events;
+
+    private JetpackManager manager;
+    private Player player;
+    private FlightTypes[] types;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Simulation simulation = BenchmarkServer.start();
+        manager = simulation.getManager();
+
+        Jetpack.Slot[] slots = Jetpack.Slot.values();
+        for (int i = 0; i < extraJetpacks; i++) {
+            manager.addJetpack(new NoopJetpack(i, slots[i % slots.length], RESPONDING[i % RESPONDING.length]));
+        }
+        Jetpack chestplate = new NoopJetpack(-1, Jetpack.Slot.CHESTPLATE, FlightTypes.CROUCH);
+        Jetpack held = new NoopJetpack(-2, Jetpack.Slot.HELD_ITEM, FlightTypes.INTERACT);
+        manager.addJetpack(chestplate);
+        manager.addJetpack(held);
+
+        SimPlayer simPlayer = simulation.addPlayer("", 0, null, 0).getPlayer();
+        simPlayer.getInventory().setItem(SimInventory.CHESTPLATE, manager.createItem(chestplate));
+        simPlayer.getInventory().setItem(0, manager.createItem(held));
+        player = simPlayer.getPlayer();
+        manager.invalidateEquipment(player);
+        BenchmarkServer.settle(simulation, 2);
+
+        if (events.equals("crouch")) {
+            types = new FlightTypes[]{FlightTypes.CROUCH};
+        } else if (events.equals("interact")) {
+            types = new FlightTypes[]{FlightTypes.INTERACT};
+        } else {
+            types = FlightTypes.values();
+        }
+    }
+
+    @Benchmark
+    public boolean onJetpackEvent() {
+        FlightTypes type = types[next];
+        next = next + 1 == types.length ? 0 : next + 1;
+        return manager.onJetpackEvent(new JetpackEvent(player, type, null, null));
+    }
+}
@@ -0,0 +1,60 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.VisualCandy;
+import net.jselby.ej.sim.Simulation;
+import org.bukkit.Effect;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sending a effect with a number of players online, spaced 16
+ * blocks apart, so only some of them are close enough to see it.
+ *
+ * @author James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EffectBenchmark {
+    @Param({"10", "100", "1000"})
+    public int onlinePlayers;
+
+    private Simulation simulation;
+    private Location location;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        simulation = BenchmarkServer.start();
+        simulation.setSpacing(16);
+        for (int i = 0; i < onlinePlayers; i++) {
+            simulation.addPlayer("", 0, null, 0);
+        }
+        BenchmarkServer.settle(simulation, 2);
+        location = simulation.getFlyers().get(0).getPlayer().getPlayer().getLocation();
+    }
+
+    /**
+     * Plays a effect in the same tick as the last one, so the online players
+     * have already been copied
+     */
+    @Benchmark
+    public void playEffect() {
+        VisualCandy.playEffect(Effect.SMOKE, location, 256);
+    }
+
+    /**
+     * Moves on a tick before playing each effect, so the online players are
+     * copied again each time
+     */
+    @Benchmark
+    public void playEffectNewTick() {
+        simulation.getServer().getScheduler().tick();
+        VisualCandy.playEffect(Effect.SMOKE, location, 256);
+    }
+}
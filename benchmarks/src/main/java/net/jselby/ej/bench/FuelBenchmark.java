@@ -0,0 +1,76 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.EasyJetpack;
+import net.jselby.ej.JetpackManager;
+import net.jselby.ej.Utils;
+import net.jselby.ej.sim.SimInventory;
+import net.jselby.ej.sim.SimPlayer;
+import net.jselby.ej.sim.Simulation;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures burning fuel, and checking for fuel, with the fuel in the last
+ * storage slot of a inventory which is either full of other items, or
+ * otherwise empty. When the fuel runs low, the stack is replaced.
+ *
+ * @author James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FuelBenchmark {
+    private static final int FUEL_SLOT = SimInventory.STORAGE_SIZE - 1;
+
+    @Param({"full", "sparse"})
+    public String inventory;
+
+    private JetpackManager manager;
+    private SimInventory simInventory;
+    private Player player;
+    private Material fuel;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Simulation simulation = BenchmarkServer.start();
+        manager = simulation.getManager();
+        fuel = EasyJetpack.getInstance().getSettings().getFuelMaterial();
+
+        SimPlayer simPlayer = simulation.addPlayer("standard", 0, null, 0).getPlayer();
+        simInventory = simPlayer.getInventory();
+        player = simPlayer.getPlayer();
+        if (inventory.equals("full")) {
+            for (int i = 0; i < FUEL_SLOT; i++) {
+                simInventory.setItem(i, new ItemStack(i % 2 == 0 ? Material.DIRT : Material.COBBLESTONE, 64));
+            }
+        }
+        refill();
+        BenchmarkServer.settle(simulation, 2);
+    }
+
+    private void refill() {
+        simInventory.setItem(FUEL_SLOT, new ItemStack(fuel, 64));
+        manager.invalidateFuel(player);
+    }
+
+    @Benchmark
+    public boolean useFuel() {
+        if (simInventory.count(fuel) < 2) {
+            refill();
+        }
+        return Utils.useFuel(player, false, 1);
+    }
+
+    @Benchmark
+    public boolean playerHasFuel() {
+        return Utils.playerHasFuel(player);
+    }
+}
@@ -0,0 +1,84 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.JetpackManager;
+import net.jselby.ej.Utils;
+import net.jselby.ej.sim.Simulation;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures comparing items, as done when checking if a item is a Jetpack.
+ *
+ * @author James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemMatchBenchmark {
+    /**
+     * How many lines of lore are compared by isArrayEqual
+     */
+    @Param({"3", "10"})
+    public int loreLines;
+
+    private ItemStack jetpack;
+    private ItemStack sameJetpack;
+    private ItemStack otherJetpack;
+    private ItemStack plainItem;
+    private List<String> lore;
+    private List<String> sameLore;
+    private List<String> otherLore;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Simulation simulation = BenchmarkServer.start();
+        JetpackManager manager = simulation.getManager();
+        jetpack = manager.createItem(manager.getJetpackByName("standard"));
+        sameJetpack = manager.createItem(manager.getJetpackByName("standard"));
+        otherJetpack = manager.createItem(manager.getJetpackByName("burst"));
+        plainItem = new ItemStack(Material.GOLD_CHESTPLATE, 1);
+
+        lore = new ArrayList<String>();
+        sameLore = new ArrayList<String>();
+        otherLore = new ArrayList<String>();
+        for (int i = 0; i < loreLines; i++) {
+            lore.add("A line of lore, number " + i);
+            sameLore.add("A LINE OF LORE, NUMBER " + i);
+            otherLore.add(i == loreLines - 1 ? "A different last line" : "A line of lore, number " + i);
+        }
+    }
+
+    @Benchmark
+    public boolean isItemStackEqualMatching() {
+        return Utils.isItemStackEqual(jetpack, sameJetpack);
+    }
+
+    @Benchmark
+    public boolean isItemStackEqualOtherJetpack() {
+        return Utils.isItemStackEqual(jetpack, otherJetpack);
+    }
+
+    @Benchmark
+    public boolean isItemStackEqualPlainItem() {
+        return Utils.isItemStackEqual(jetpack, plainItem);
+    }
+
+    @Benchmark
+    public boolean isArrayEqualMatching() {
+        return Utils.isArrayEqual(lore, sameLore);
+    }
+
+    @Benchmark
+    public boolean isArrayEqualLastLineDiffers() {
+        return Utils.isArrayEqual(lore, otherLore);
+    }
+}
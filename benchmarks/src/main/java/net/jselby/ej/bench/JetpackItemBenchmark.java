@@ -0,0 +1,47 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.JetpackManager;
+import net.jselby.ej.api.Jetpack;
+import net.jselby.ej.sim.Simulation;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a Jetpack's item, both from scratch with getItem() and
+ * from the template cached by the JetpackManager.
+ *
+ * @author James
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JetpackItemBenchmark {
+    @Param({"standard", "burst", "teleportation", "hover", "fallboots"})
+    public String jetpackName;
+
+    private JetpackManager manager;
+    private Jetpack jetpack;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Simulation simulation = BenchmarkServer.start();
+        manager = simulation.getManager();
+        jetpack = manager.getJetpackByName(jetpackName);
+    }
+
+    @Benchmark
+    public ItemStack getItem() {
+        return jetpack.getItem();
+    }
+
+    @Benchmark
+    public ItemStack createItem() {
+        return manager.createItem(jetpack);
+    }
+}
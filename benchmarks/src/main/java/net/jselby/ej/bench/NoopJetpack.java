@@ -0,0 +1,89 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import net.jselby.ej.api.JetpackEvent;
+import net.jselby.ej.impl.CraftingRecipe;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+
+/**
+ * A Jetpack which does nothing, so benchmarks only measure finding it
+ *
+ * @author James
+ */
+class NoopJetpack extends Jetpack {
+    private final int id;
+    private final Slot slot;
+    private final FlightTypes type;
+
+    NoopJetpack(int id, Slot slot, FlightTypes type) {
+        this.id = id;
+        this.slot = slot;
+        this.type = type;
+    }
+
+    @Override
+    public String getName() {
+        return ChatColor.RESET + "Benchmark Jetpack " + id;
+    }
+
+    @Override
+    public String getGiveName() {
+        return "benchmark" + id;
+    }
+
+    @Override
+    public String[] getDescription() {
+        return new String[]{ChatColor.RESET + "Does nothing, quickly."};
+    }
+
+    @Override
+    public Material getMaterial() {
+        switch (slot) {
+            case HELMET:
+                return Material.IRON_HELMET;
+            case CHESTPLATE:
+                return Material.IRON_CHESTPLATE;
+            case LEGGINGS:
+                return Material.IRON_LEGGINGS;
+            case BOOTS:
+                return Material.IRON_BOOTS;
+            default:
+                return Material.STICK;
+        }
+    }
+
+    @Override
+    public void onFlyEvent(JetpackEvent event) {
+    }
+
+    @Override
+    public void onFuelUsageEvent(JetpackEvent event) {
+    }
+
+    @Override
+    public boolean onFuelCheckEvent(JetpackEvent event) {
+        return true;
+    }
+
+    @Override
+    public FlightTypes getMovementType() {
+        return type;
+    }
+
+    @Override
+    public CraftingRecipe getCraftingRecipe() {
+        return null;
+    }
+
+    @Override
+    public Slot getSlot() {
+        return slot;
+    }
+
+    @Override
+    public boolean isRepairingDisabled() {
+        return false;
+    }
+}
@@ -0,0 +1,148 @@
+package net.jselby.ej.bench;
+
+import net.jselby.ej.sim.Script;
+import net.jselby.ej.sim.Simulation;
+import net.jselby.ej.sim.TickSamples;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures how the plugin scales, by running whole servers' worth of
+ * simulated players through the real listener, manager and Jetpacks for many
+ * ticks. Every combination of online players, flyers and Jetpack mix is run
+ * in turn, and the CPU time and memory the plugin took each tick are written
+ * out as CSV, one row per scenario, so the curves can be compared between
+ * releases.
+ * <p/>
+ * Flyers hold sneak for most of a two second loop and use their controllers,
+ * while everyone else stands still, but still sees the effects around them.
+ * <p/>
+ * Usage: ScalabilityBenchmark [--players 50,100,250,500,1000]
+ * [--flyers 0%,10%,50%,100%] [--mixes burst;hover+hovercontroller;...]
+ * [--ticks 600] [--warmup 200] [--fuel 4] [--spacing 4] [--label name]
+ * [--out file.csv]
+ *
+ * @author James
+ */
+public class ScalabilityBenchmark {
+    private static final String DEFAULT_MIXES = "standard;burst;hover+hovercontroller;"
+            + "standard,burst,hover+hovercontroller,teleportation,standard+fallboots";
+    private static final Script FLYER_SCRIPT = Script.parse("0:crouch,10:left,20:right,"
+            + "25:look:90:-20,36:release,38:look:0:-60", 40);
+
+    /**
+     * Durability is turned off, so Jetpacks don't break part way through a
+     * scenario and leave their players standing still.
+     */
+    private static final String CONFIG = "jetpacks:\n"
+            + "    traditional:\n        durability: false\n"
+            + "    burst:\n        durability: false\n"
+            + "    teleport:\n        durability: false\n"
+            + "    boots:\n        durability: false\n";
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.err.println("Expected a option, got " + args[i]);
+                System.exit(1);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        String[] playerCounts = get(options, "players", "50,100,250,500,1000").split(",");
+        String[] flyerCounts = get(options, "flyers", "0%,10%,50%,100%").split(",");
+        String[] mixes = get(options, "mixes", DEFAULT_MIXES).split(";");
+        int ticks = Integer.parseInt(get(options, "ticks", "600"));
+        int warmup = Integer.parseInt(get(options, "warmup", "200"));
+        int fuel = Integer.parseInt(get(options, "fuel", "4"));
+        String label = get(options, "label", "");
+
+        Simulation simulation = BenchmarkServer.start("easyjetpack-scalability", CONFIG);
+        simulation.setSpacing(Integer.parseInt(get(options, "spacing", "4")));
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(options.containsKey("out")
+                ? new FileWriter(options.get("out")) : new OutputStreamWriter(System.out)));
+        out.println("label,players,flyers,mix,ticks,cpu_mean_ms,cpu_p50_ms,cpu_p90_ms,cpu_p99_ms,"
+                + "cpu_max_ms,alloc_mean_bytes,alloc_p50_bytes,alloc_p90_bytes,alloc_p99_bytes,"
+                + "alloc_max_bytes");
+
+        for (String mix : mixes) {
+            for (String playerCount : playerCounts) {
+                int players = Integer.parseInt(playerCount.trim());
+                for (String flyerCount : flyerCounts) {
+                    int flyers = getFlyers(flyerCount.trim(), players);
+                    if (flyers > players) {
+                        continue;
+                    }
+
+                    System.err.printf("%d players, %d flying %s%n", players, flyers, mix);
+                    run(simulation, players, flyers, mix.split(","), fuel, warmup, ticks);
+                    write(out, simulation, label, players, flyers, mix, ticks);
+                    out.flush();
+                }
+            }
+        }
+
+        out.close();
+        System.exit(0);
+    }
+
+    private static String get(Map<String, String> options, String key, String fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : value;
+    }
+
+    private static int getFlyers(String count, int players) {
+        if (count.endsWith("%")) {
+            return (int) Math.round(players * Double.parseDouble(count.substring(0, count.length() - 1)) / 100);
+        }
+        return Integer.parseInt(count);
+    }
+
+    private static void run(Simulation simulation, int players, int flyers, String[] mix,
+                            int fuel, int warmup, int ticks) {
+        simulation.removePlayers();
+
+        // Flyers are spread evenly through the crowd, and start at different
+        // points in the script, so they don't all crouch on the same tick
+        int added = 0;
+        for (int i = 0; i < players; i++) {
+            if ((long) (i + 1) * flyers / players > added) {
+                simulation.addPlayer(mix[added % mix.length], fuel, FLYER_SCRIPT,
+                        (added * 7) % FLYER_SCRIPT.getLength());
+                added++;
+            } else {
+                simulation.addPlayer("", 0, null, 0);
+            }
+        }
+
+        for (int i = 0; i < warmup; i++) {
+            simulation.tick();
+        }
+        simulation.getTimes().clear();
+        simulation.getAllocations().clear();
+        for (int i = 0; i < ticks; i++) {
+            simulation.tick();
+        }
+    }
+
+    private static void write(PrintWriter out, Simulation simulation, String label,
+                              int players, int flyers, String mix, int ticks) {
+        TickSamples times = simulation.getTimes();
+        TickSamples allocations = simulation.getAllocations();
+        out.printf(Locale.ROOT, "%s,%d,%d,\"%s\",%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.0f,%d,%d,%d,%d%n",
+                label, players, flyers, mix, ticks,
+                times.getMean() / 1e6, times.getPercentile(50) / 1e6, times.getPercentile(90) / 1e6,
+                times.getPercentile(99) / 1e6, times.getMax() / 1e6,
+                allocations.getMean(), allocations.getPercentile(50), allocations.getPercentile(90),
+                allocations.getPercentile(99), allocations.getMax());
+    }
+}
@@ -0,0 +1,41 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.EasyJetpackAPI;
+import net.jselby.ej.sim.StubServer;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+
+/**
+ * EasyJetpack, loaded without a server's plugin loader. Only the Jetpacks are
+ * loaded; commands, metrics and anticheat hooks are left out.
+ *
+ * @author James
+ */
+public class HeadlessEasyJetpack extends EasyJetpack {
+    /**
+     * Creates the plugin
+     *
+     * @param server     The server to run on
+     * @param dataFolder Where config.yml is read from. The default
+     *                   configuration is used for anything it doesn't set.
+     */
+    @SuppressWarnings("deprecation")
+    public HeadlessEasyJetpack(StubServer server, File dataFolder) {
+        super(new JavaPluginLoader(server.getServer()),
+                new PluginDescriptionFile("EasyJetpack", "headless", EasyJetpack.class.getName()),
+                dataFolder, new File(dataFolder, "EasyJetpack.jar"));
+    }
+
+    /**
+     * Loads the configuration and the default Jetpacks, and registers the
+     * plugin's listener with the server.
+     *
+     * @return The JetpackManager
+     */
+    public JetpackManager load() {
+        loadJetpacks();
+        return EasyJetpackAPI.getManager();
+    }
+}
@@ -0,0 +1,117 @@
+package net.jselby.ej.sim;
+
+import java.util.ArrayList;
+
+/**
+ * A loop of inputs for simulated players to replay. A script is written as a
+ * list of steps, separated by commas, where each step is a tick within the
+ * loop and a input:
+ * <pre>
+ *     0:crouch,3:release,40:left,60:right,80:look:90:-30
+ * </pre>
+ * The inputs are crouch and release (pressing and letting go of sneak), left
+ * and right (clicking the air with the held item), and look:yaw:pitch.
+ *
+ * @author James
+ */
+public class Script {
+    public static final int CROUCH = 0;
+    public static final int RELEASE = 1;
+    public static final int LEFT_CLICK = 2;
+    public static final int RIGHT_CLICK = 3;
+    public static final int LOOK = 4;
+
+    /**
+     * Taps and holds sneak, clicks with the controller, and looks around, so
+     * each of the built-in Jetpacks gets used.
+     */
+    public static final String DEFAULT = "0:crouch,3:release,6:crouch,9:release,"
+            + "12:look:0:-60,15:crouch,45:release,50:left,55:left,60:right,"
+            + "70:look:90:-20,75:crouch,100:release,110:look:180:10";
+
+    private final int length;
+    private final ArrayList<int[]> byTick = new ArrayList<int[]>();
+    private final ArrayList<float[]> looks = new ArrayList<float[]>();
+
+    private Script(int length) {
+        this.length = length;
+        for (int i = 0; i < length; i++) {
+            byTick.add(null);
+            looks.add(null);
+        }
+    }
+
+    /**
+     * Reads a script
+     *
+     * @param steps  The steps of the script
+     * @param length How many ticks the loop lasts for
+     * @return The script
+     * @throws IllegalArgumentException If a step can't be read
+     */
+    public static Script parse(String steps, int length) {
+        Script script = new Script(length);
+        for (String step : steps.split(",")) {
+            String[] parts = step.trim().split(":");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Expected tick:input, got " + step);
+            }
+
+            int tick = Integer.parseInt(parts[0]);
+            if (tick < 0 || tick >= length) {
+                throw new IllegalArgumentException("Tick " + tick + " is outside the loop of " + length);
+            }
+
+            String input = parts[1].toLowerCase();
+            if (input.equals("crouch")) {
+                script.add(tick, CROUCH);
+            } else if (input.equals("release")) {
+                script.add(tick, RELEASE);
+            } else if (input.equals("left")) {
+                script.add(tick, LEFT_CLICK);
+            } else if (input.equals("right")) {
+                script.add(tick, RIGHT_CLICK);
+            } else if (input.equals("look") && parts.length == 4) {
+                script.add(tick, LOOK);
+                script.looks.set(tick, new float[]{Float.parseFloat(parts[2]), Float.parseFloat(parts[3])});
+            } else {
+                throw new IllegalArgumentException("Unknown input " + step);
+            }
+        }
+        return script;
+    }
+
+    private void add(int tick, int input) {
+        int[] existing = byTick.get(tick);
+        int[] inputs = new int[existing == null ? 1 : existing.length + 1];
+        if (existing != null) {
+            System.arraycopy(existing, 0, inputs, 0, existing.length);
+        }
+        inputs[inputs.length - 1] = input;
+        byTick.set(tick, inputs);
+    }
+
+    /**
+     * Returns the inputs at a point in the script
+     *
+     * @param tick The tick, which wraps around the loop
+     * @return The inputs, or null if there are none
+     */
+    public int[] getInputs(long tick) {
+        return byTick.get((int) (tick % length));
+    }
+
+    /**
+     * Returns the yaw and pitch of the look input at a point in the script
+     *
+     * @param tick The tick, which wraps around the loop
+     * @return The yaw and pitch, or null
+     */
+    public float[] getLook(long tick) {
+        return looks.get((int) (tick % length));
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,255 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.Material;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.HashMap;
+
+/**
+ * A player's inventory, laid out the same way as the server lays it out:
+ * slots 0 to 35 for storage (0 to 8 being the hotbar), 36 to 39 for armor,
+ * and 40 for the off hand.
+ * <p/>
+ * Like the server, items are copied when they are put in, and items which
+ * are taken out are the inventory's own copy, so changes to them show up in
+ * the inventory.
+ *
+ * @author James
+ */
+public class SimInventory extends Stub {
+    public static final int STORAGE_SIZE = 36;
+    public static final int BOOTS = 36;
+    public static final int LEGGINGS = 37;
+    public static final int CHESTPLATE = 38;
+    public static final int HELMET = 39;
+    public static final int OFF_HAND = 40;
+    public static final int SIZE = 41;
+
+    private final ItemStack[] items = new ItemStack[SIZE];
+    private final PlayerInventory inventory;
+    private HumanEntity holder;
+    private int heldSlot;
+
+    public SimInventory() {
+        this.inventory = Stub.create(PlayerInventory.class, this);
+    }
+
+    /**
+     * Returns the PlayerInventory this stub is behind
+     *
+     * @return A PlayerInventory
+     */
+    public PlayerInventory getInventory() {
+        return inventory;
+    }
+
+    void setHolder(HumanEntity holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Returns a item in the inventory
+     *
+     * @param slot The slot to get
+     * @return The inventory's copy of the item, or null if the slot is empty
+     */
+    public ItemStack getItem(int slot) {
+        return items[slot];
+    }
+
+    /**
+     * Replaces a item in the inventory
+     *
+     * @param slot The slot to set
+     * @param item The item to copy in, or null
+     */
+    public void setItem(int slot, ItemStack item) {
+        if (item == null || item.getType() == Material.AIR || item.getAmount() <= 0) {
+            items[slot] = null;
+        } else {
+            items[slot] = item.clone();
+        }
+    }
+
+    /**
+     * Counts the items of a material in the storage slots
+     *
+     * @param material The material to count
+     * @return How many items there are
+     */
+    public int count(Material material) {
+        int count = 0;
+        for (int i = 0; i < STORAGE_SIZE; i++) {
+            if (items[i] != null && items[i].getType() == material) {
+                count += items[i].getAmount();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("getSize")) {
+            return SIZE;
+        } else if (name.equals("getMaxStackSize")) {
+            return 64;
+        } else if (name.equals("getType")) {
+            return InventoryType.PLAYER;
+        } else if (name.equals("getHolder")) {
+            return holder;
+        } else if (name.equals("getItem")) {
+            return getItem((Integer) args[0]);
+        } else if (name.equals("setItem")) {
+            setItem((Integer) args[0], (ItemStack) args[1]);
+        } else if (name.equals("getHeldItemSlot")) {
+            return heldSlot;
+        } else if (name.equals("setHeldItemSlot")) {
+            heldSlot = (Integer) args[0];
+        } else if (name.equals("getItemInHand") || name.equals("getItemInMainHand")) {
+            return getItem(heldSlot);
+        } else if (name.equals("setItemInHand") || name.equals("setItemInMainHand")) {
+            setItem(heldSlot, (ItemStack) args[0]);
+        } else if (name.equals("getItemInOffHand")) {
+            return getItem(OFF_HAND);
+        } else if (name.equals("setItemInOffHand")) {
+            setItem(OFF_HAND, (ItemStack) args[0]);
+        } else if (name.equals("getHelmet")) {
+            return getItem(HELMET);
+        } else if (name.equals("setHelmet")) {
+            setItem(HELMET, (ItemStack) args[0]);
+        } else if (name.equals("getChestplate")) {
+            return getItem(CHESTPLATE);
+        } else if (name.equals("setChestplate")) {
+            setItem(CHESTPLATE, (ItemStack) args[0]);
+        } else if (name.equals("getLeggings")) {
+            return getItem(LEGGINGS);
+        } else if (name.equals("setLeggings")) {
+            setItem(LEGGINGS, (ItemStack) args[0]);
+        } else if (name.equals("getBoots")) {
+            return getItem(BOOTS);
+        } else if (name.equals("setBoots")) {
+            setItem(BOOTS, (ItemStack) args[0]);
+        } else if (name.equals("getContents")) {
+            return items.clone();
+        } else if (name.equals("getStorageContents")) {
+            ItemStack[] storage = new ItemStack[STORAGE_SIZE];
+            System.arraycopy(items, 0, storage, 0, STORAGE_SIZE);
+            return storage;
+        } else if (name.equals("getArmorContents")) {
+            return new ItemStack[]{items[BOOTS], items[LEGGINGS], items[CHESTPLATE], items[HELMET]};
+        } else if (name.equals("addItem")) {
+            return addItem((ItemStack[]) args[0]);
+        } else if (name.equals("removeItem")) {
+            return removeItem((ItemStack[]) args[0]);
+        } else if (name.equals("remove") && args[0] instanceof Material) {
+            for (int i = 0; i < STORAGE_SIZE; i++) {
+                if (items[i] != null && items[i].getType() == args[0]) {
+                    items[i] = null;
+                }
+            }
+        } else if (name.equals("remove")) {
+            for (int i = 0; i < STORAGE_SIZE; i++) {
+                if (items[i] != null && items[i].equals(args[0])) {
+                    items[i] = null;
+                }
+            }
+        } else if (name.equals("contains") && args.length == 1 && args[0] instanceof Material) {
+            return count((Material) args[0]) > 0;
+        } else if (name.equals("contains") && args.length == 2 && args[0] instanceof Material) {
+            return count((Material) args[0]) >= (Integer) args[1];
+        } else if (name.equals("first") && args[0] instanceof Material) {
+            for (int i = 0; i < STORAGE_SIZE; i++) {
+                if (items[i] != null && items[i].getType() == args[0]) {
+                    return i;
+                }
+            }
+            return -1;
+        } else if (name.equals("firstEmpty")) {
+            return firstEmpty();
+        } else if (name.equals("clear") && args.length == 0) {
+            for (int i = 0; i < SIZE; i++) {
+                items[i] = null;
+            }
+        } else if (name.equals("clear")) {
+            items[(Integer) args[0]] = null;
+        } else {
+            return UNHANDLED;
+        }
+        return null;
+    }
+
+    private int firstEmpty() {
+        for (int i = 0; i < STORAGE_SIZE; i++) {
+            if (items[i] == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private HashMap<Integer, ItemStack> addItem(ItemStack[] add) {
+        HashMap<Integer, ItemStack> leftover = new HashMap<Integer, ItemStack>();
+        for (int i = 0; i < add.length; i++) {
+            ItemStack item = add[i];
+            int remaining = item.getAmount();
+            int maxStack = Math.max(1, item.getMaxStackSize());
+
+            // Top up stacks of the same item first, then use empty slots
+            for (int slot = 0; slot < STORAGE_SIZE && remaining > 0; slot++) {
+                ItemStack existing = items[slot];
+                if (existing != null && existing.isSimilar(item) && existing.getAmount() < maxStack) {
+                    int moved = Math.min(remaining, maxStack - existing.getAmount());
+                    existing.setAmount(existing.getAmount() + moved);
+                    remaining -= moved;
+                }
+            }
+            while (remaining > 0) {
+                int slot = firstEmpty();
+                if (slot == -1) {
+                    break;
+                }
+                ItemStack placed = item.clone();
+                placed.setAmount(Math.min(remaining, maxStack));
+                items[slot] = placed;
+                remaining -= placed.getAmount();
+            }
+
+            if (remaining > 0) {
+                ItemStack left = item.clone();
+                left.setAmount(remaining);
+                leftover.put(i, left);
+            }
+        }
+        return leftover;
+    }
+
+    private HashMap<Integer, ItemStack> removeItem(ItemStack[] remove) {
+        HashMap<Integer, ItemStack> leftover = new HashMap<Integer, ItemStack>();
+        for (int i = 0; i < remove.length; i++) {
+            ItemStack item = remove[i];
+            int remaining = item.getAmount();
+            for (int slot = 0; slot < STORAGE_SIZE && remaining > 0; slot++) {
+                ItemStack existing = items[slot];
+                if (existing != null && existing.isSimilar(item)) {
+                    int moved = Math.min(remaining, existing.getAmount());
+                    remaining -= moved;
+                    if (moved == existing.getAmount()) {
+                        items[slot] = null;
+                    } else {
+                        existing.setAmount(existing.getAmount() - moved);
+                    }
+                }
+            }
+
+            if (remaining > 0) {
+                ItemStack left = item.clone();
+                left.setAmount(remaining);
+                leftover.put(i, left);
+            }
+        }
+        return leftover;
+    }
+}
@@ -0,0 +1,336 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.Vector;
+
+import java.util.UUID;
+
+/**
+ * A simulated player. Velocity that is set on them is applied the way a
+ * client would apply it: they move by their velocity each tick, fall under
+ * gravity, slow down from drag, and land on the world's surface.
+ *
+ * @author James
+ */
+public class SimPlayer extends Stub {
+    private static final double GRAVITY = 0.08;
+    private static final double AIR_DRAG = 0.98;
+    private static final double AIR_FRICTION = 0.91;
+    private static final double GROUND_FRICTION = 0.546;
+    private static final double EYE_HEIGHT = 1.62;
+
+    private final Player player;
+    private final int entityId;
+    private final UUID uniqueId;
+    private final String name;
+    private final SimInventory inventory = new SimInventory();
+    private SimWorld world;
+
+    private double x;
+    private double y;
+    private double z;
+    private float yaw;
+    private float pitch;
+    private double velocityX;
+    private double velocityY;
+    private double velocityZ;
+    private boolean onGround;
+    private float fallDistance;
+
+    private boolean online = true;
+    private boolean sneaking;
+    private GameMode gameMode = GameMode.SURVIVAL;
+    private boolean allowFlight;
+    private boolean flying;
+    private float flySpeed = 0.1F;
+    private boolean gliding;
+
+    private int velocityWrites;
+    private int teleports;
+    private int messages;
+    private int effectsSeen;
+
+    /**
+     * Creates a player standing on the surface of a world
+     *
+     * @param entityId A unique number, which their name and UUID come from
+     * @param world    The world they are in
+     * @param x        Their X coordinate
+     * @param z        Their Z coordinate
+     */
+    public SimPlayer(int entityId, SimWorld world, double x, double z) {
+        this.entityId = entityId;
+        this.uniqueId = new UUID(0x5EED, entityId);
+        this.name = "Player" + entityId;
+        this.world = world;
+        this.x = x;
+        this.z = z;
+        this.y = world.getSurface(floor(x), floor(z));
+        this.onGround = true;
+        this.player = Stub.create(Player.class, this);
+        inventory.setHolder(player);
+    }
+
+    /**
+     * Returns the Player this stub is behind
+     *
+     * @return A Player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    public SimInventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Moves the player by one tick, as their client would
+     *
+     * @return How far they fell, if they landed this tick, otherwise 0
+     */
+    public float tick() {
+        if (flying) {
+            velocityY *= 0.6;
+        } else if (gliding) {
+            velocityY -= GRAVITY * 0.25;
+        } else {
+            velocityY -= GRAVITY;
+        }
+
+        x += velocityX;
+        y += velocityY;
+        z += velocityZ;
+
+        float landed = 0;
+        int surface = world.getSurface(floor(x), floor(z));
+        if (y <= surface) {
+            if (!onGround) {
+                landed = Math.max(fallDistance, 0.001F);
+            }
+            y = surface;
+            velocityY = 0;
+            onGround = true;
+            fallDistance = 0;
+            gliding = false;
+        } else {
+            onGround = false;
+            if (velocityY < 0 && !flying) {
+                fallDistance -= velocityY;
+            }
+        }
+
+        if (!flying) {
+            velocityY *= AIR_DRAG;
+        }
+        double friction = onGround ? GROUND_FRICTION : AIR_FRICTION;
+        velocityX *= friction;
+        velocityZ *= friction;
+        return landed;
+    }
+
+    /**
+     * Turns the player to look in a direction
+     *
+     * @param yaw   Their new yaw
+     * @param pitch Their new pitch
+     */
+    public void look(float yaw, float pitch) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+    }
+
+    /**
+     * Sets if the player is online. Offline players stop flight sessions.
+     *
+     * @param online If they are online
+     */
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    public void setSneaking(boolean sneaking) {
+        this.sneaking = sneaking;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    public double getVelocityY() {
+        return velocityY;
+    }
+
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    public boolean isFlying() {
+        return flying;
+    }
+
+    public boolean isGliding() {
+        return gliding;
+    }
+
+    /**
+     * Returns how many times the plugin has set the player's velocity
+     *
+     * @return The number of velocity writes
+     */
+    public int getVelocityWrites() {
+        return velocityWrites;
+    }
+
+    public int getTeleports() {
+        return teleports;
+    }
+
+    public int getMessages() {
+        return messages;
+    }
+
+    /**
+     * Returns how many effects have been sent to this player
+     *
+     * @return The number of effects
+     */
+    public int getEffectsSeen() {
+        return effectsSeen;
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("getUniqueId")) {
+            return uniqueId;
+        } else if (name.equals("getName") || name.equals("getDisplayName")
+                || name.equals("getPlayerListName")) {
+            return this.name;
+        } else if (name.equals("getEntityId")) {
+            return entityId;
+        } else if (name.equals("getType")) {
+            return EntityType.PLAYER;
+        } else if (name.equals("isOnline") || name.equals("isValid")) {
+            return online;
+        } else if (name.equals("getWorld")) {
+            return world.getWorld();
+        } else if (name.equals("getLocation") && args.length == 0) {
+            return new Location(world.getWorld(), x, y, z, yaw, pitch);
+        } else if (name.equals("getLocation")) {
+            Location location = (Location) args[0];
+            if (location != null) {
+                location.setWorld(world.getWorld());
+                location.setX(x);
+                location.setY(y);
+                location.setZ(z);
+                location.setYaw(yaw);
+                location.setPitch(pitch);
+            }
+            return location;
+        } else if (name.equals("getEyeLocation")) {
+            return new Location(world.getWorld(), x, y + EYE_HEIGHT, z, yaw, pitch);
+        } else if (name.equals("getEyeHeight")) {
+            return EYE_HEIGHT;
+        } else if (name.equals("getVelocity")) {
+            return new Vector(velocityX, velocityY, velocityZ);
+        } else if (name.equals("setVelocity")) {
+            Vector velocity = (Vector) args[0];
+            velocityX = velocity.getX();
+            velocityY = velocity.getY();
+            velocityZ = velocity.getZ();
+            velocityWrites++;
+        } else if (name.equals("teleport")) {
+            Location to = args[0] instanceof Entity ? ((Entity) args[0]).getLocation() : (Location) args[0];
+            if (to.getWorld() != null) {
+                world = (SimWorld) Stub.of(to.getWorld());
+            }
+            x = to.getX();
+            y = to.getY();
+            z = to.getZ();
+            yaw = to.getYaw();
+            pitch = to.getPitch();
+            fallDistance = 0;
+            teleports++;
+            return true;
+        } else if (name.equals("getTargetBlock")) {
+            return world.getTargetBlock(new Location(world.getWorld(), x, y + EYE_HEIGHT, z, yaw, pitch),
+                    (Integer) args[1]);
+        } else if (name.equals("getInventory")) {
+            return inventory.getInventory();
+        } else if (name.equals("getItemInHand")) {
+            return inventory.getItem(inventory.getInventory().getHeldItemSlot());
+        } else if (name.equals("setItemInHand")) {
+            inventory.setItem(inventory.getInventory().getHeldItemSlot(), (ItemStack) args[0]);
+        } else if (name.equals("hasPermission") || name.equals("isPermissionSet") || name.equals("isOp")) {
+            return true;
+        } else if (name.equals("isSneaking")) {
+            return sneaking;
+        } else if (name.equals("setSneaking")) {
+            sneaking = (Boolean) args[0];
+        } else if (name.equals("sendMessage")) {
+            messages++;
+        } else if (name.equals("playEffect")) {
+            effectsSeen++;
+        } else if (name.equals("getGameMode")) {
+            return gameMode;
+        } else if (name.equals("setGameMode")) {
+            gameMode = (GameMode) args[0];
+        } else if (name.equals("isOnGround")) {
+            return onGround;
+        } else if (name.equals("getFallDistance")) {
+            return fallDistance;
+        } else if (name.equals("setFallDistance")) {
+            fallDistance = (Float) args[0];
+        } else if (name.equals("getAllowFlight")) {
+            return allowFlight;
+        } else if (name.equals("setAllowFlight")) {
+            allowFlight = (Boolean) args[0];
+            if (!allowFlight) {
+                flying = false;
+            }
+        } else if (name.equals("isFlying")) {
+            return flying;
+        } else if (name.equals("setFlying")) {
+            flying = (Boolean) args[0] && allowFlight;
+        } else if (name.equals("getFlySpeed")) {
+            return flySpeed;
+        } else if (name.equals("setFlySpeed")) {
+            flySpeed = (Float) args[0];
+        } else if (name.equals("isGliding")) {
+            return gliding;
+        } else if (name.equals("setGliding")) {
+            gliding = (Boolean) args[0] && !onGround;
+        } else if (name.equals("getHealth") || name.equals("getMaxHealth")) {
+            return 20D;
+        } else {
+            return UNHANDLED;
+        }
+        return null;
+    }
+
+    private static int floor(double value) {
+        int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+}
@@ -0,0 +1,278 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.util.Vector;
+
+import java.util.UUID;
+
+/**
+ * A endless world of stone, with bedrock at the bottom. The surface is made
+ * of 8x8 block columns, each up to 7 blocks above the ground level, so flying
+ * and teleporting have something to run into.
+ *
+ * @author James
+ */
+public class SimWorld extends Stub {
+    private static final double RAY_STEP = 0.1;
+
+    private final World world;
+    private final String name;
+    private final UUID uid;
+    private final int groundLevel;
+
+    /**
+     * Creates a new world
+     *
+     * @param name        The world's name
+     * @param groundLevel The lowest height of the surface
+     */
+    public SimWorld(String name, int groundLevel) {
+        this.name = name;
+        this.uid = UUID.nameUUIDFromBytes(name.getBytes());
+        this.groundLevel = groundLevel;
+        this.world = Stub.create(World.class, this);
+    }
+
+    /**
+     * Returns the World this stub is behind
+     *
+     * @return A World
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Returns the height of the surface at a column, which is the first air
+     * block above the ground.
+     *
+     * @param x The X coordinate of the column
+     * @param z The Z coordinate of the column
+     * @return The surface height
+     */
+    public int getSurface(int x, int z) {
+        int hash = (x >> 3) * 73856093 ^ (z >> 3) * 19349663;
+        hash ^= hash >>> 13;
+        return groundLevel + ((hash * 0x5bd1e995) >>> 29);
+    }
+
+    /**
+     * Returns the type of block at a position
+     *
+     * @param x The block's X coordinate
+     * @param y The block's Y coordinate
+     * @param z The block's Z coordinate
+     * @return The block's Material
+     */
+    public Material getType(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return Material.AIR;
+        } else if (y == 0) {
+            return Material.BEDROCK;
+        }
+        return y < getSurface(x, z) ? Material.STONE : Material.AIR;
+    }
+
+    /**
+     * Finds the first solid block along where a entity is looking, or the
+     * block at the end of its range if there isn't one.
+     *
+     * @param eye         Where the entity is looking from
+     * @param maxDistance How far the entity can see
+     * @return The block that was found
+     */
+    public Block getTargetBlock(Location eye, int maxDistance) {
+        Vector direction = eye.getDirection();
+        double x = eye.getX();
+        double y = eye.getY();
+        double z = eye.getZ();
+
+        int blockX = floor(x);
+        int blockY = floor(y);
+        int blockZ = floor(z);
+        for (double travelled = 0; travelled < maxDistance; travelled += RAY_STEP) {
+            blockX = floor(x + direction.getX() * travelled);
+            blockY = floor(y + direction.getY() * travelled);
+            blockZ = floor(z + direction.getZ() * travelled);
+            if (getType(blockX, blockY, blockZ) != Material.AIR) {
+                break;
+            }
+        }
+        return getBlockAt(blockX, blockY, blockZ);
+    }
+
+    /**
+     * Returns a block in this world
+     *
+     * @param x The block's X coordinate
+     * @param y The block's Y coordinate
+     * @param z The block's Z coordinate
+     * @return A Block
+     */
+    public Block getBlockAt(int x, int y, int z) {
+        return Stub.create(Block.class, new SimBlock(x, y, z));
+    }
+
+    /**
+     * Returns a chunk in this world. Every chunk is always loaded.
+     *
+     * @param x The chunk's X coordinate
+     * @param z The chunk's Z coordinate
+     * @return A Chunk
+     */
+    public Chunk getChunkAt(int x, int z) {
+        return Stub.create(Chunk.class, new SimChunk(x, z));
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("getName")) {
+            return this.name;
+        } else if (name.equals("getUID")) {
+            return uid;
+        } else if (name.equals("getBlockAt") && args.length == 3) {
+            return getBlockAt((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+        } else if (name.equals("getBlockAt")) {
+            Location location = (Location) args[0];
+            return getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        } else if (name.equals("getBlockTypeIdAt") && args.length == 3) {
+            return getType((Integer) args[0], (Integer) args[1], (Integer) args[2]).getId();
+        } else if (name.equals("getHighestBlockYAt") && args.length == 2) {
+            return getSurface((Integer) args[0], (Integer) args[1]);
+        } else if (name.equals("getMaxHeight")) {
+            return 256;
+        } else if (name.equals("getSeaLevel")) {
+            return groundLevel;
+        } else if (name.equals("getSpawnLocation")) {
+            return new Location(world, 0.5, getSurface(0, 0), 0.5);
+        } else if (name.equals("getChunkAt") && args.length == 2) {
+            return getChunkAt((Integer) args[0], (Integer) args[1]);
+        } else if (name.equals("getChunkAt") && args[0] instanceof Location) {
+            Location location = (Location) args[0];
+            return getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        } else if (name.equals("getChunkAt")) {
+            Block block = (Block) args[0];
+            return getChunkAt(block.getX() >> 4, block.getZ() >> 4);
+        } else if (name.equals("isChunkLoaded") || name.equals("loadChunk")) {
+            return true;
+        } else if (name.equals("getEnvironment")) {
+            return World.Environment.NORMAL;
+        }
+        return UNHANDLED;
+    }
+
+    private static int floor(double value) {
+        int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+
+    /**
+     * A chunk, which also stands in for its own snapshots. The world never
+     * changes, so reading straight from it is the same as reading a copy.
+     */
+    private class SimChunk extends Stub {
+        private final int x;
+        private final int z;
+
+        private SimChunk(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        protected Object handle(Object proxy, String name, Object[] args) {
+            if (name.equals("getX")) {
+                return x;
+            } else if (name.equals("getZ")) {
+                return z;
+            } else if (name.equals("getWorld")) {
+                return world;
+            } else if (name.equals("isLoaded") || name.equals("load")) {
+                return true;
+            } else if (name.equals("getBlock")) {
+                return getBlockAt(x * 16 + (Integer) args[0], (Integer) args[1], z * 16 + (Integer) args[2]);
+            } else if (name.equals("getChunkSnapshot")) {
+                return Stub.create(ChunkSnapshot.class, this);
+            } else if (name.equals("getWorldName")) {
+                return SimWorld.this.name;
+            } else if (name.equals("getBlockTypeId")) {
+                return getType(x * 16 + (Integer) args[0], (Integer) args[1], z * 16 + (Integer) args[2]).getId();
+            } else if (name.equals("getHighestBlockYAt")) {
+                return getSurface(x * 16 + (Integer) args[0], z * 16 + (Integer) args[1]);
+            } else if (name.equals("isSectionEmpty")) {
+                return (Integer) args[0] * 16 > groundLevel + 7;
+            }
+            return UNHANDLED;
+        }
+    }
+
+    /**
+     * A single block, which reads its type from the world
+     */
+    private class SimBlock extends Stub {
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private SimBlock(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        protected Object handle(Object proxy, String name, Object[] args) {
+            if (name.equals("getX")) {
+                return x;
+            } else if (name.equals("getY")) {
+                return y;
+            } else if (name.equals("getZ")) {
+                return z;
+            } else if (name.equals("getWorld")) {
+                return world;
+            } else if (name.equals("getType")) {
+                return getType(x, y, z);
+            } else if (name.equals("getTypeId")) {
+                return getType(x, y, z).getId();
+            } else if (name.equals("isEmpty")) {
+                return getType(x, y, z) == Material.AIR;
+            } else if (name.equals("getLocation") && args.length == 0) {
+                return new Location(world, x, y, z);
+            } else if (name.equals("getLocation")) {
+                Location location = (Location) args[0];
+                if (location != null) {
+                    location.setWorld(world);
+                    location.setX(x);
+                    location.setY(y);
+                    location.setZ(z);
+                    location.setYaw(0);
+                    location.setPitch(0);
+                }
+                return location;
+            } else if (name.equals("getRelative") && args.length == 3) {
+                return getBlockAt(x + (Integer) args[0], y + (Integer) args[1], z + (Integer) args[2]);
+            } else if (name.equals("getRelative")) {
+                BlockFace face = (BlockFace) args[0];
+                int distance = args.length > 1 ? (Integer) args[1] : 1;
+                return getBlockAt(x + face.getModX() * distance, y + face.getModY() * distance,
+                        z + face.getModZ() * distance);
+            } else if (name.equals("equals") && args.length == 1) {
+                if (!(args[0] instanceof Block)) {
+                    return false;
+                }
+                Block other = (Block) args[0];
+                return other.getWorld() == world && other.getX() == x
+                        && other.getY() == y && other.getZ() == z;
+            } else if (name.equals("hashCode") && args.length == 0) {
+                return (y * 31 + x) * 31 + z;
+            }
+            return UNHANDLED;
+        }
+    }
+}
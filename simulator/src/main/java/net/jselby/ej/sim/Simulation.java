@@ -0,0 +1,428 @@
+package net.jselby.ej.sim;
+
+import net.jselby.ej.EasyJetpack;
+import net.jselby.ej.HeadlessEasyJetpack;
+import net.jselby.ej.JetpackManager;
+import net.jselby.ej.Settings;
+import net.jselby.ej.api.Jetpack;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs EasyJetpack against simulated players, one tick at a time. Players
+ * join with a loadout of Jetpacks and some fuel, and replay a script of
+ * inputs, which are passed to the plugin as the same events a server would
+ * call.
+ * <p/>
+ * EasyJetpack can only be loaded once per JVM, so a simulation is started
+ * once, and players are added and removed to set up each scenario.
+ *
+ * @author James
+ */
+public class Simulation {
+    /**
+     * Players who fall further than this take fall damage
+     */
+    private static final float SAFE_FALL = 3;
+    /**
+     * How many players are placed in each row of the grid
+     */
+    private static final int GRID_WIDTH = 64;
+    private static Simulation instance;
+
+    private final StubServer server;
+    private final SimWorld world;
+    private final JetpackManager manager;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final TickSamples times = new TickSamples();
+    private final TickSamples allocations = new TickSamples();
+    private final ArrayList<Flyer> flyers = new ArrayList<Flyer>();
+    private int spacing = 4;
+    private int nextEntityId;
+    private long tick;
+
+    private Simulation(File dataFolder) {
+        server = StubServer.install();
+        world = new SimWorld("world", 64);
+        server.addWorld(world);
+        manager = new HeadlessEasyJetpack(server, dataFolder).load();
+    }
+
+    /**
+     * Starts the simulation, loading EasyJetpack. Later calls return the same
+     * simulation.
+     *
+     * @param dataFolder Where config.yml is read from
+     * @return The Simulation
+     */
+    public static synchronized Simulation start(File dataFolder) {
+        if (instance == null) {
+            instance = new Simulation(dataFolder);
+        }
+        return instance;
+    }
+
+    /**
+     * Sets how far apart, in blocks, new players are placed. Players are laid
+     * out in rows of 64.
+     *
+     * @param spacing The distance between players
+     */
+    public void setSpacing(int spacing) {
+        this.spacing = spacing;
+    }
+
+    /**
+     * Adds a player to the server
+     *
+     * @param loadout    The give names of the Jetpacks they have, joined by
+     *                   '+', or an empty string for none
+     * @param fuelStacks How many stacks of fuel they have
+     * @param script     The inputs they replay, or null for none
+     * @param offset     How many ticks into the script they start
+     * @return The new player
+     * @throws IllegalArgumentException If a Jetpack doesn't exist
+     */
+    public Flyer addPlayer(String loadout, int fuelStacks, Script script, int offset) {
+        int index = flyers.size();
+        SimPlayer player = new SimPlayer(nextEntityId++, world,
+                (index % GRID_WIDTH) * spacing + 0.5, (index / GRID_WIDTH) * spacing + 0.5);
+        SimInventory inventory = player.getInventory();
+
+        if (!loadout.isEmpty()) {
+            for (String name : loadout.split("\\+")) {
+                Jetpack jetpack = manager.getJetpackByName(name);
+                if (jetpack == null) {
+                    throw new IllegalArgumentException("No jetpack was found by the name " + name);
+                }
+                inventory.setItem(getInventorySlot(jetpack.getSlot()), manager.createItem(jetpack));
+            }
+        }
+
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        short durability = (short) Math.max(0, settings.getFuelDurability());
+        for (int i = 0; i < fuelStacks && i < SimInventory.STORAGE_SIZE - 9; i++) {
+            inventory.setItem(9 + i, new ItemStack(settings.getFuelMaterial(), 64, durability));
+        }
+
+        Flyer flyer = new Flyer(player, loadout, script, offset);
+        flyers.add(flyer);
+        server.addPlayer(player);
+        server.getPluginManager().callEvent(new PlayerJoinEvent(player.getPlayer(), null));
+        return flyer;
+    }
+
+    /**
+     * Removes every player from the server
+     */
+    public void removePlayers() {
+        for (Flyer flyer : flyers) {
+            server.getPluginManager().callEvent(new PlayerQuitEvent(flyer.player.getPlayer(), null));
+        }
+        server.clearPlayers();
+        flyers.clear();
+        times.clear();
+        allocations.clear();
+    }
+
+    /**
+     * Runs a single tick. Players are moved first, and then the time taken
+     * and memory allocated by the plugin are measured while it handles their
+     * landings and inputs, and while the scheduler runs.
+     *
+     * @return The CPU time the plugin took, in nanoseconds
+     */
+    public long tick() {
+        tick++;
+        for (Flyer flyer : flyers) {
+            flyer.move();
+        }
+
+        long start = cpuTime();
+        long startBytes = allocatedBytes();
+        for (Flyer flyer : flyers) {
+            if (flyer.landed > SAFE_FALL) {
+                land(flyer);
+            }
+            if (flyer.script != null) {
+                replay(flyer);
+            }
+        }
+        server.getScheduler().tick();
+        server.getScheduler().awaitAsync();
+        long took = cpuTime() - start;
+        long allocated = allocatedBytes() - startBytes;
+
+        times.add(took);
+        allocations.add(allocated);
+        return took;
+    }
+
+    private void land(Flyer flyer) {
+        double damage = flyer.landed - SAFE_FALL;
+        EntityDamageEvent event = server.getPluginManager().callEvent(new EntityDamageEvent(
+                flyer.player.getPlayer(), EntityDamageEvent.DamageCause.FALL, damage));
+        if (event.isCancelled()) {
+            flyer.fallPrevented += damage;
+        } else {
+            flyer.fallTaken += damage;
+        }
+    }
+
+    private void replay(Flyer flyer) {
+        long at = tick + flyer.offset;
+        int[] inputs = flyer.script.getInputs(at);
+        if (inputs == null) {
+            return;
+        }
+
+        Player player = flyer.player.getPlayer();
+        for (int input : inputs) {
+            switch (input) {
+                case Script.CROUCH:
+                case Script.RELEASE:
+                    boolean sneaking = input == Script.CROUCH;
+                    flyer.player.setSneaking(sneaking);
+                    server.getPluginManager().callEvent(new PlayerToggleSneakEvent(player, sneaking));
+                    break;
+                case Script.LEFT_CLICK:
+                case Script.RIGHT_CLICK:
+                    Action action = input == Script.LEFT_CLICK ? Action.LEFT_CLICK_AIR : Action.RIGHT_CLICK_AIR;
+                    server.getPluginManager().callEvent(new PlayerInteractEvent(player, action,
+                            player.getInventory().getItemInMainHand(), null, BlockFace.SELF));
+                    break;
+                case Script.LOOK:
+                    float[] look = flyer.script.getLook(at);
+                    flyer.player.look(look[0], look[1]);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private long cpuTime() {
+        if (threads.isCurrentThreadCpuTimeSupported()) {
+            return threads.getCurrentThreadCpuTime();
+        }
+        return System.nanoTime();
+    }
+
+    private long allocatedBytes() {
+        // Only HotSpot counts the memory each thread allocates
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    private static int getInventorySlot(Jetpack.Slot slot) {
+        switch (slot) {
+            case HELMET:
+                return SimInventory.HELMET;
+            case CHESTPLATE:
+                return SimInventory.CHESTPLATE;
+            case LEGGINGS:
+                return SimInventory.LEGGINGS;
+            case BOOTS:
+                return SimInventory.BOOTS;
+            default:
+                return 0;
+        }
+    }
+
+    public StubServer getServer() {
+        return server;
+    }
+
+    public JetpackManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Returns the CPU time the plugin took in each tick since the players
+     * were last removed
+     *
+     * @return The recorded ticks
+     */
+    public TickSamples getTimes() {
+        return times;
+    }
+
+    /**
+     * Returns the memory the plugin allocated on the main thread in each tick
+     * since the players were last removed. This is always zero on JVMs which
+     * don't count allocations per thread.
+     *
+     * @return The recorded ticks, in bytes
+     */
+    public TickSamples getAllocations() {
+        return allocations;
+    }
+
+    public List<Flyer> getFlyers() {
+        return flyers;
+    }
+
+    public long getCurrentTick() {
+        return tick;
+    }
+
+    /**
+     * A simulated player, and what has happened to them
+     */
+    public static class Flyer {
+        private final SimPlayer player;
+        private final String loadout;
+        private final Script script;
+        private final int offset;
+        private final double startY;
+        private final double startFuel;
+        private float landed;
+        private double distance;
+        private double maxY;
+        private double fallTaken;
+        private double fallPrevented;
+
+        private Flyer(SimPlayer player, String loadout, Script script, int offset) {
+            this.player = player;
+            this.loadout = loadout;
+            this.script = script;
+            this.offset = offset;
+            this.startY = player.getY();
+            this.maxY = player.getY();
+            this.startFuel = getFuel();
+        }
+
+        private void move() {
+            double x = player.getX();
+            double y = player.getY();
+            double z = player.getZ();
+            landed = player.tick();
+
+            double dx = player.getX() - x;
+            double dy = player.getY() - y;
+            double dz = player.getZ() - z;
+            distance += Math.sqrt(dx * dx + dy * dy + dz * dz);
+            maxY = Math.max(maxY, player.getY());
+        }
+
+        public SimPlayer getPlayer() {
+            return player;
+        }
+
+        public String getLoadout() {
+            return loadout;
+        }
+
+        /**
+         * Returns how far the player has travelled, including teleports
+         *
+         * @return The length of their path, in blocks
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        /**
+         * Returns the highest the player has been above where they started
+         *
+         * @return A height, in blocks
+         */
+        public double getMaxHeight() {
+            return maxY - startY;
+        }
+
+        public double getFallTaken() {
+            return fallTaken;
+        }
+
+        public double getFallPrevented() {
+            return fallPrevented;
+        }
+
+        /**
+         * Returns how much fuel the player has used, where a partly burnt
+         * item counts as the fraction that has burned
+         *
+         * @return The number of fuel items used
+         */
+        public double getFuelBurned() {
+            return startFuel - getFuel();
+        }
+
+        /**
+         * Returns how much durability has been used on the player's armor
+         *
+         * @return The total damage on their armor slots
+         */
+        public int getDurabilityUsed() {
+            int used = 0;
+            for (int slot = SimInventory.BOOTS; slot <= SimInventory.HELMET; slot++) {
+                ItemStack item = player.getInventory().getItem(slot);
+                if (item != null) {
+                    used += item.getDurability();
+                }
+            }
+            return used;
+        }
+
+        /**
+         * Checks if the Jetpack in the player's chestplate slot has broken
+         *
+         * @return If their chestplate is missing
+         */
+        public boolean isChestplateBroken() {
+            return player.getInventory().getItem(SimInventory.CHESTPLATE) == null && hasChestplate();
+        }
+
+        private boolean hasChestplate() {
+            for (String name : loadout.split("\\+")) {
+                Jetpack jetpack = instance.manager.getJetpackByName(name);
+                if (jetpack != null && jetpack.getSlot() == Jetpack.Slot.CHESTPLATE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private double getFuel() {
+            Material fuel = EasyJetpack.getInstance().getSettings().getFuelMaterial();
+            double total = 0;
+            for (int slot = 0; slot < SimInventory.STORAGE_SIZE; slot++) {
+                ItemStack item = player.getInventory().getItem(slot);
+                if (item == null || item.getType() != fuel) {
+                    continue;
+                }
+
+                ItemMeta meta = item.getItemMeta();
+                if (meta != null && meta.hasLore() && meta.getLore().get(0).contains("% left")) {
+                    String shown = ChatColor.stripColor(meta.getLore().get(0).split("%")[0]);
+                    total += Integer.parseInt(shown.trim()) / 100D;
+                } else {
+                    total += item.getAmount();
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package net.jselby.ej.sim;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the built-in Jetpacks against thousands of simulated players, and
+ * reports how they flew, what they used up, and how much CPU time and memory
+ * the plugin took each tick.
+ * <p/>
+ * Usage: Simulator [--players 1000] [--ticks 1200] [--warmup 200]
+ * [--mix standard,burst,...] [--script steps] [--loop 120] [--fuel 4]
+ * [--spacing 4] [--config folder] [--trace file.csv] [--trace-players 10]
+ *
+ * @author James
+ */
+public class Simulator {
+    private static final String DEFAULT_MIX = "standard,burst,hover+hovercontroller,"
+            + "teleportation,standard+fallboots";
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.err.println("Expected a option, got " + args[i]);
+                System.exit(1);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        int playerCount = Integer.parseInt(get(options, "players", "1000"));
+        int ticks = Integer.parseInt(get(options, "ticks", "1200"));
+        int warmup = Integer.parseInt(get(options, "warmup", "200"));
+        String[] mix = get(options, "mix", DEFAULT_MIX).split(",");
+        Script script = Script.parse(get(options, "script", Script.DEFAULT),
+                Integer.parseInt(get(options, "loop", "120")));
+        int fuel = Integer.parseInt(get(options, "fuel", "4"));
+        int tracePlayers = Integer.parseInt(get(options, "trace-players", "10"));
+
+        Simulation simulation = Simulation.start(new File(get(options, "config", "simulator-data")));
+        simulation.setSpacing(Integer.parseInt(get(options, "spacing", "4")));
+
+        // Players start at different points in the script, so they don't all
+        // crouch on the same tick
+        for (int i = 0; i < playerCount; i++) {
+            simulation.addPlayer(mix[i % mix.length], fuel, script, (i * 7) % script.getLength());
+        }
+
+        PrintWriter trace = null;
+        if (options.containsKey("trace")) {
+            trace = new PrintWriter(new BufferedWriter(new FileWriter(options.get("trace"))));
+            trace.println("tick,player,loadout,x,y,z,vx,vy,vz,onground");
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < warmup; i++) {
+            simulation.tick();
+        }
+        simulation.getTimes().clear();
+        simulation.getAllocations().clear();
+        for (int i = 0; i < ticks; i++) {
+            simulation.tick();
+            if (trace != null) {
+                trace(trace, simulation, tracePlayers);
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        if (trace != null) {
+            trace.close();
+        }
+
+        report(simulation, playerCount, warmup, ticks, seconds);
+        System.exit(0);
+    }
+
+    private static String get(Map<String, String> options, String key, String fallback) {
+        String value = options.get(key);
+        return value == null ? fallback : value;
+    }
+
+    private static void trace(PrintWriter trace, Simulation simulation, int players) {
+        List<Simulation.Flyer> flyers = simulation.getFlyers();
+        for (int i = 0; i < players && i < flyers.size(); i++) {
+            SimPlayer player = flyers.get(i).getPlayer();
+            trace.printf("%d,%d,%s,%.3f,%.3f,%.3f,%.4f,%.4f,%.4f,%b%n",
+                    simulation.getCurrentTick(), i, flyers.get(i).getLoadout(),
+                    player.getX(), player.getY(), player.getZ(),
+                    player.getVelocityX(), player.getVelocityY(), player.getVelocityZ(),
+                    player.isOnGround());
+        }
+    }
+
+    private static void report(Simulation simulation, int players, int warmup, int ticks, double seconds) {
+        TickSamples times = simulation.getTimes();
+        System.out.printf("%d players, %d ticks after %d warmup ticks, %.1f seconds%n",
+                players, ticks, warmup, seconds);
+        System.out.printf("Plugin CPU per tick: mean %.3f ms, p50 %.3f ms, p95 %.3f ms, "
+                        + "p99 %.3f ms, max %.3f ms%n",
+                times.getMean() / 1e6, times.getPercentile(50) / 1e6, times.getPercentile(95) / 1e6,
+                times.getPercentile(99) / 1e6, times.getMax() / 1e6);
+        TickSamples allocations = simulation.getAllocations();
+        System.out.printf("Plugin allocations per tick: mean %.1f KB, p50 %.1f KB, p99 %.1f KB, "
+                        + "max %.1f KB%n",
+                allocations.getMean() / 1024, allocations.getPercentile(50) / 1024D,
+                allocations.getPercentile(99) / 1024D, allocations.getMax() / 1024D);
+        System.out.println();
+
+        // Group everything by loadout
+        Map<String, double[]> totals = new LinkedHashMap<String, double[]>();
+        for (Simulation.Flyer flyer : simulation.getFlyers()) {
+            double[] total = totals.get(flyer.getLoadout());
+            if (total == null) {
+                total = new double[11];
+                totals.put(flyer.getLoadout(), total);
+            }
+            SimPlayer player = flyer.getPlayer();
+            total[0]++;
+            total[1] += flyer.getDistance();
+            total[2] = Math.max(total[2], flyer.getMaxHeight());
+            total[3] += flyer.getFuelBurned();
+            total[4] += flyer.getDurabilityUsed();
+            total[5] += flyer.isChestplateBroken() ? 1 : 0;
+            total[6] += flyer.getFallTaken();
+            total[7] += flyer.getFallPrevented();
+            total[8] += player.getTeleports();
+            total[9] += player.getVelocityWrites();
+            total[10] += player.getEffectsSeen();
+        }
+
+        System.out.printf("%-28s %7s %10s %8s %9s %10s %7s %9s %9s %9s %10s %10s%n",
+                "Loadout", "Players", "Distance", "Height", "Fuel", "Durability", "Broken",
+                "FallHurt", "FallSaved", "Teleports", "Velocity", "Effects");
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] total = entry.getValue();
+            System.out.printf("%-28s %7d %10.1f %8.1f %9.2f %10d %7d %9.1f %9.1f %9d %10d %10d%n",
+                    entry.getKey(), (int) total[0], total[1] / total[0], total[2], total[3],
+                    (int) total[4], (int) total[5], total[6], total[7], (int) total[8],
+                    (int) total[9], (int) total[10]);
+        }
+        System.out.println();
+        System.out.println("Distance is the average path length per player, Height is the highest");
+        System.out.println("any player reached, and the remaining columns are totals.");
+    }
+}
@@ -0,0 +1,100 @@
+package net.jselby.ej.sim;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * A stand-in for part of the Bukkit API. Each stub implements a Bukkit
+ * interface through a dynamic proxy, and only handles the methods that
+ * EasyJetpack actually calls. Anything else returns null, zero or false, so
+ * a stub doesn't need to keep up with every method of the interface.
+ *
+ * @author James
+ */
+public abstract class Stub implements InvocationHandler {
+    /**
+     * Returned by handle() for methods that a stub doesn't implement
+     */
+    protected static final Object UNHANDLED = new Object();
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * Creates a proxy for a Bukkit interface, backed by a stub
+     *
+     * @param type The interface to implement
+     * @param stub The stub which handles calls
+     * @return A instance of the interface
+     */
+    public static <T> T create(Class<T> type, Stub stub) {
+        return type.cast(Proxy.newProxyInstance(Stub.class.getClassLoader(),
+                new Class[]{type}, stub));
+    }
+
+    /**
+     * Finds the stub behind a proxy
+     *
+     * @param proxy A proxy from create()
+     * @return The stub handling calls to it
+     */
+    public static Stub of(Object proxy) {
+        return (Stub) Proxy.getInvocationHandler(proxy);
+    }
+
+    @Override
+    public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (args == null) {
+            args = NO_ARGS;
+        }
+
+        Object result = handle(proxy, name, args);
+        if (result != UNHANDLED) {
+            return result;
+        }
+
+        // Unless a stub says otherwise, proxies are only equal to themselves
+        if (method.getDeclaringClass() == Object.class) {
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            } else if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (name.equals("toString")) {
+                return getClass().getSimpleName();
+            }
+        }
+        return defaultValue(method.getReturnType());
+    }
+
+    /**
+     * Handles a call to the proxy
+     *
+     * @param proxy The proxy that was called
+     * @param name  The name of the method
+     * @param args  The arguments, which is empty rather than null
+     * @return The result, or UNHANDLED
+     * @throws Throwable Passed on to the caller
+     */
+    protected abstract Object handle(Object proxy, String name, Object[] args) throws Throwable;
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == Void.TYPE) {
+            return null;
+        } else if (type == Boolean.TYPE) {
+            return false;
+        } else if (type == Character.TYPE) {
+            return (char) 0;
+        } else if (type == Byte.TYPE) {
+            return (byte) 0;
+        } else if (type == Short.TYPE) {
+            return (short) 0;
+        } else if (type == Integer.TYPE) {
+            return 0;
+        } else if (type == Long.TYPE) {
+            return 0L;
+        } else if (type == Float.TYPE) {
+            return 0F;
+        }
+        return 0D;
+    }
+}
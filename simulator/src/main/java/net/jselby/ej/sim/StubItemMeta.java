@@ -0,0 +1,95 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Item metadata, holding a display name and lore. Like the server's own
+ * metadata, lore is copied on the way in and out, and two metas are equal if
+ * they hold the same name and lore.
+ *
+ * @author James
+ */
+public class StubItemMeta extends Stub {
+    private String displayName;
+    private List<String> lore;
+
+    /**
+     * Creates empty metadata
+     *
+     * @return A ItemMeta
+     */
+    public static ItemMeta create() {
+        return create(new StubItemMeta());
+    }
+
+    private static ItemMeta create(StubItemMeta meta) {
+        return Stub.create(ItemMeta.class, meta);
+    }
+
+    /**
+     * Checks if metadata holds anything. Null is empty.
+     *
+     * @param meta The metadata to check
+     * @return If it has no name or lore
+     */
+    static boolean isEmpty(ItemMeta meta) {
+        if (meta == null) {
+            return true;
+        }
+        StubItemMeta stub = (StubItemMeta) Stub.of(meta);
+        return stub.displayName == null && stub.lore == null;
+    }
+
+    /**
+     * Compares two metas, where null is the same as empty metadata
+     *
+     * @param meta  The first meta
+     * @param meta2 The second meta
+     * @return If they hold the same name and lore
+     */
+    static boolean isEqual(ItemMeta meta, ItemMeta meta2) {
+        if (isEmpty(meta) || isEmpty(meta2)) {
+            return isEmpty(meta) && isEmpty(meta2);
+        }
+        return ((StubItemMeta) Stub.of(meta)).isEqual((StubItemMeta) Stub.of(meta2));
+    }
+
+    private boolean isEqual(StubItemMeta other) {
+        return (displayName == null ? other.displayName == null : displayName.equals(other.displayName))
+                && (lore == null ? other.lore == null : lore.equals(other.lore));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("hasDisplayName")) {
+            return displayName != null && !displayName.isEmpty();
+        } else if (name.equals("getDisplayName")) {
+            return displayName;
+        } else if (name.equals("setDisplayName")) {
+            displayName = (String) args[0];
+        } else if (name.equals("hasLore")) {
+            return lore != null && !lore.isEmpty();
+        } else if (name.equals("getLore")) {
+            return lore == null ? null : new ArrayList<String>(lore);
+        } else if (name.equals("setLore")) {
+            lore = args[0] == null ? null : new ArrayList<String>((List<String>) args[0]);
+        } else if (name.equals("clone")) {
+            StubItemMeta copy = new StubItemMeta();
+            copy.displayName = displayName;
+            copy.lore = lore == null ? null : new ArrayList<String>(lore);
+            return create(copy);
+        } else if (name.equals("equals") && args.length == 1) {
+            return args[0] instanceof ItemMeta && isEqual((ItemMeta) proxy, (ItemMeta) args[0]);
+        } else if (name.equals("hashCode") && args.length == 0) {
+            return (displayName == null ? 0 : displayName.hashCode()) * 31
+                    + (lore == null ? 0 : lore.hashCode());
+        } else {
+            return UNHANDLED;
+        }
+        return null;
+    }
+}
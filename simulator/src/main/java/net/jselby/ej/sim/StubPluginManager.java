@@ -0,0 +1,175 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * A plugin manager which only knows about events. Listeners are registered
+ * the same way as they are with a server, and callEvent() passes a event to
+ * every handler for it, in priority order, skipping handlers which ignore
+ * cancelled events once it has been cancelled.
+ *
+ * @author James
+ */
+public class StubPluginManager extends Stub {
+    private final ArrayList<Registration> registrations = new ArrayList<Registration>();
+    private final HashMap<Class<?>, Registration[]> byEvent = new HashMap<Class<?>, Registration[]>();
+
+    /**
+     * Passes a event to everything listening for it
+     *
+     * @param event The event to call
+     * @return The event, so its outcome can be checked
+     */
+    public <T extends Event> T callEvent(T event) {
+        Registration[] handlers = byEvent.get(event.getClass());
+        if (handlers == null) {
+            ArrayList<Registration> found = new ArrayList<Registration>();
+            for (Registration next : registrations) {
+                if (next.eventClass.isAssignableFrom(event.getClass())) {
+                    found.add(next);
+                }
+            }
+            handlers = found.toArray(new Registration[found.size()]);
+            byEvent.put(event.getClass(), handlers);
+        }
+
+        for (Registration next : handlers) {
+            if (next.ignoreCancelled && event instanceof Cancellable
+                    && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+            try {
+                next.executor.execute(next.listener, event);
+            } catch (EventException e) {
+                throw new IllegalStateException("Could not pass "
+                        + event.getEventName() + " to " + next.listener, e.getCause());
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Removes every handler belonging to a listener
+     *
+     * @param listener The listener to remove
+     */
+    public void unregister(Listener listener) {
+        for (int i = registrations.size() - 1; i >= 0; i--) {
+            if (registrations.get(i).listener == listener) {
+                registrations.remove(i);
+            }
+        }
+        byEvent.clear();
+    }
+
+    /**
+     * Returns how many handlers are registered, across every listener
+     *
+     * @return The handler count
+     */
+    public int getHandlerCount() {
+        return registrations.size();
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("registerEvents")) {
+            registerEvents((Listener) args[0]);
+        } else if (name.equals("registerEvent")) {
+            register((Class<?>) args[0], (Listener) args[1], (EventPriority) args[2],
+                    (EventExecutor) args[3], args.length > 5 && (Boolean) args[5]);
+        } else if (name.equals("callEvent")) {
+            callEvent((Event) args[0]);
+        } else if (name.equals("getPlugins")) {
+            return new Plugin[0];
+        } else {
+            return UNHANDLED;
+        }
+        return null;
+    }
+
+    private void registerEvents(Listener listener) {
+        for (final Method method : listener.getClass().getMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.getParameterTypes().length != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+
+            method.setAccessible(true);
+            register(method.getParameterTypes()[0], listener, handler.priority(),
+                    new EventExecutor() {
+                        @Override
+                        public void execute(Listener listener, Event event) throws EventException {
+                            try {
+                                method.invoke(listener, event);
+                            } catch (InvocationTargetException e) {
+                                throw new EventException(e.getCause());
+                            } catch (IllegalAccessException e) {
+                                throw new EventException(e);
+                            }
+                        }
+                    }, handler.ignoreCancelled());
+        }
+    }
+
+    private void register(final Class<?> eventClass, Listener listener, EventPriority priority,
+                          final EventExecutor executor, boolean ignoreCancelled) {
+        Registration registration = new Registration();
+        registration.eventClass = eventClass;
+        registration.listener = listener;
+        registration.priority = priority;
+        registration.ignoreCancelled = ignoreCancelled;
+
+        // Servers only pass on events which are the registered type
+        registration.executor = new EventExecutor() {
+            @Override
+            public void execute(Listener listener, Event event) throws EventException {
+                if (eventClass.isAssignableFrom(event.getClass())) {
+                    executor.execute(listener, event);
+                }
+            }
+        };
+
+        registrations.add(registration);
+        Collections.sort(registrations, new Comparator<Registration>() {
+            @Override
+            public int compare(Registration first, Registration second) {
+                return first.priority.compareTo(second.priority);
+            }
+        });
+        byEvent.clear();
+    }
+
+    /**
+     * Creates a PluginManager backed by this stub
+     *
+     * @return A PluginManager
+     */
+    PluginManager asPluginManager() {
+        return Stub.create(PluginManager.class, this);
+    }
+
+    private static class Registration {
+        private Class<?> eventClass;
+        private Listener listener;
+        private EventPriority priority;
+        private EventExecutor executor;
+        private boolean ignoreCancelled;
+    }
+}
@@ -0,0 +1,212 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A scheduler which only moves forward when tick() is called. Sync tasks run
+ * on the thread calling tick(), and async tasks run on a single background
+ * thread, which awaitAsync() can wait for.
+ *
+ * @author James
+ */
+public class StubScheduler extends Stub {
+    private final ArrayList<Task> tasks = new ArrayList<Task>();
+    private final ArrayList<Task> due = new ArrayList<Task>();
+    private final ExecutorService async = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Stub Scheduler Async");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private volatile long currentTick;
+    private int nextId = 1;
+
+    /**
+     * Runs every task which is due this tick, in the order they were
+     * scheduled. Tasks scheduled while this runs are due next tick at the
+     * earliest.
+     */
+    public void tick() {
+        currentTick++;
+
+        due.clear();
+        synchronized (tasks) {
+            for (Task task : tasks) {
+                if (task.nextTick <= currentTick) {
+                    due.add(task);
+                }
+            }
+        }
+
+        for (Task task : due) {
+            if (task.cancelled) {
+                continue;
+            }
+            if (task.period > 0) {
+                task.nextTick = currentTick + task.period;
+            } else {
+                task.cancelled = true;
+            }
+
+            if (task.async) {
+                async.execute(task.runnable);
+            } else {
+                task.runnable.run();
+            }
+        }
+
+        synchronized (tasks) {
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                if (tasks.get(i).cancelled) {
+                    tasks.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for every async task which has been started so far to finish
+     */
+    public void awaitAsync() {
+        try {
+            async.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns how many times tick() has been called
+     *
+     * @return The current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        // Async tasks can schedule tasks too
+        synchronized (tasks) {
+            return handleLocked(name, args);
+        }
+    }
+
+    private Object handleLocked(String name, Object[] args) {
+        if (name.equals("runTask") || name.equals("scheduleSyncDelayedTask")) {
+            return schedule(name, args, args.length > 2 ? (Long) args[2] : 0, -1, false);
+        } else if (name.equals("runTaskLater")) {
+            return schedule(name, args, (Long) args[2], -1, false);
+        } else if (name.equals("runTaskTimer") || name.equals("scheduleSyncRepeatingTask")) {
+            return schedule(name, args, (Long) args[2], (Long) args[3], false);
+        } else if (name.equals("runTaskAsynchronously") || name.equals("scheduleAsyncDelayedTask")) {
+            return schedule(name, args, args.length > 2 ? (Long) args[2] : 0, -1, true);
+        } else if (name.equals("runTaskLaterAsynchronously")) {
+            return schedule(name, args, (Long) args[2], -1, true);
+        } else if (name.equals("runTaskTimerAsynchronously") || name.equals("scheduleAsyncRepeatingTask")) {
+            return schedule(name, args, (Long) args[2], (Long) args[3], true);
+        } else if (name.equals("callSyncMethod")) {
+            @SuppressWarnings("unchecked")
+            FutureTask<Object> future = new FutureTask<Object>((Callable<Object>) args[1]);
+            add((Plugin) args[0], future, 0, -1, false);
+            return future;
+        } else if (name.equals("cancelTask")) {
+            for (Task task : tasks) {
+                if (task.id == (Integer) args[0]) {
+                    task.cancelled = true;
+                }
+            }
+        } else if (name.equals("cancelTasks") || name.equals("cancelAllTasks")) {
+            for (Task task : tasks) {
+                task.cancelled = true;
+            }
+        } else if (name.equals("isQueued") || name.equals("isCurrentlyRunning")) {
+            for (Task task : tasks) {
+                if (task.id == (Integer) args[0]) {
+                    return !task.cancelled;
+                }
+            }
+            return false;
+        } else {
+            return UNHANDLED;
+        }
+        return null;
+    }
+
+    private Object schedule(String name, Object[] args, long delay, long period, boolean async) {
+        Task task = add((Plugin) args[0], (Runnable) args[1], delay, period, async);
+        if (name.startsWith("schedule")) {
+            return task.id;
+        }
+        return Stub.create(BukkitTask.class, task);
+    }
+
+    private Task add(Plugin owner, Runnable runnable, long delay, long period, boolean async) {
+        Task task = new Task();
+        task.id = nextId++;
+        task.owner = owner;
+        task.runnable = runnable;
+        task.nextTick = currentTick + Math.max(1, delay);
+        task.period = period;
+        task.async = async;
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Creates a BukkitScheduler backed by this stub
+     *
+     * @return A BukkitScheduler
+     */
+    BukkitScheduler asScheduler() {
+        return Stub.create(BukkitScheduler.class, this);
+    }
+
+    /**
+     * A scheduled task, which is also the stub behind its BukkitTask
+     */
+    private static class Task extends Stub {
+        private int id;
+        private Plugin owner;
+        private Runnable runnable;
+        private long nextTick;
+        private long period;
+        private boolean async;
+        private volatile boolean cancelled;
+
+        @Override
+        protected Object handle(Object proxy, String name, Object[] args) {
+            if (name.equals("getTaskId")) {
+                return id;
+            } else if (name.equals("getOwner")) {
+                return owner;
+            } else if (name.equals("isSync")) {
+                return !async;
+            } else if (name.equals("isCancelled")) {
+                return cancelled;
+            } else if (name.equals("cancel")) {
+                cancelled = true;
+                return null;
+            }
+            return UNHANDLED;
+        }
+    }
+}
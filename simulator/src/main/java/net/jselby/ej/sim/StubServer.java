@@ -0,0 +1,178 @@
+package net.jselby.ej.sim;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * A server with no network, no ticking of its own, and only the worlds and
+ * players that have been added to it. Bukkit only accepts one server per JVM,
+ * so this is created once with install().
+ *
+ * @author James
+ */
+public class StubServer extends Stub {
+    private static StubServer installed;
+
+    private final Server server;
+    private final Logger logger = Logger.getLogger("StubServer");
+    private final Thread mainThread = Thread.currentThread();
+    private final StubScheduler scheduler = new StubScheduler();
+    private final StubPluginManager pluginManager = new StubPluginManager();
+    private final BukkitScheduler schedulerProxy = scheduler.asScheduler();
+    private final PluginManager pluginManagerProxy = pluginManager.asPluginManager();
+    private final ItemFactory itemFactory = Stub.create(ItemFactory.class, new ItemFactoryStub());
+    private final ArrayList<Player> online = new ArrayList<Player>();
+    private final List<Player> onlineView = Collections.unmodifiableList(online);
+    private final ArrayList<World> worlds = new ArrayList<World>();
+
+    private StubServer() {
+        this.server = Stub.create(Server.class, this);
+    }
+
+    /**
+     * Creates the server, and gives it to Bukkit. Later calls return the same
+     * server.
+     *
+     * @return The StubServer
+     */
+    public static synchronized StubServer install() {
+        if (installed == null) {
+            installed = new StubServer();
+            Bukkit.setServer(installed.server);
+        }
+        return installed;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    public StubScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public StubPluginManager getPluginManager() {
+        return pluginManager;
+    }
+
+    /**
+     * Adds a world to the server
+     *
+     * @param world The world to add
+     */
+    public void addWorld(SimWorld world) {
+        worlds.add(world.getWorld());
+    }
+
+    /**
+     * Marks a player as online. This doesn't call any events.
+     *
+     * @param player The player who joined
+     */
+    public void addPlayer(SimPlayer player) {
+        player.setOnline(true);
+        online.add(player.getPlayer());
+    }
+
+    /**
+     * Marks a player as offline. This doesn't call any events.
+     *
+     * @param player The player who left
+     */
+    public void removePlayer(SimPlayer player) {
+        player.setOnline(false);
+        online.remove(player.getPlayer());
+    }
+
+    /**
+     * Removes every player from the server
+     */
+    public void clearPlayers() {
+        for (Player next : online) {
+            ((SimPlayer) Stub.of(next)).setOnline(false);
+        }
+        online.clear();
+    }
+
+    @Override
+    protected Object handle(Object proxy, String name, Object[] args) {
+        if (name.equals("getName")) {
+            return "StubServer";
+        } else if (name.equals("getVersion") || name.equals("getBukkitVersion")) {
+            return "1.11.2-R0.1-SNAPSHOT";
+        } else if (name.equals("getLogger")) {
+            return logger;
+        } else if (name.equals("getOnlinePlayers")) {
+            return onlineView;
+        } else if (name.equals("getPlayer") && args[0] instanceof UUID) {
+            for (Player next : online) {
+                if (next.getUniqueId().equals(args[0])) {
+                    return next;
+                }
+            }
+            return null;
+        } else if (name.equals("getPlayer") || name.equals("getPlayerExact")) {
+            for (Player next : online) {
+                if (next.getName().equalsIgnoreCase((String) args[0])) {
+                    return next;
+                }
+            }
+            return null;
+        } else if (name.equals("getScheduler")) {
+            return schedulerProxy;
+        } else if (name.equals("getPluginManager")) {
+            return pluginManagerProxy;
+        } else if (name.equals("getItemFactory")) {
+            return itemFactory;
+        } else if (name.equals("getWorlds")) {
+            return new ArrayList<World>(worlds);
+        } else if (name.equals("getWorld")) {
+            for (World next : worlds) {
+                if (next.getName().equals(args[0]) || next.getUID().equals(args[0])) {
+                    return next;
+                }
+            }
+            return null;
+        } else if (name.equals("isPrimaryThread")) {
+            return Thread.currentThread() == mainThread;
+        } else if (name.equals("addRecipe") || name.equals("getAllowFlight")) {
+            return true;
+        } else if (name.equals("getMaxPlayers")) {
+            return Integer.MAX_VALUE;
+        }
+        return UNHANDLED;
+    }
+
+    /**
+     * Creates item metadata holding a name and lore, for every material
+     * except air.
+     */
+    private static class ItemFactoryStub extends Stub {
+        @Override
+        protected Object handle(Object proxy, String name, Object[] args) {
+            if (name.equals("getItemMeta")) {
+                return args[0] == Material.AIR ? null : StubItemMeta.create();
+            } else if (name.equals("isApplicable")) {
+                return args[0] == null || args[0] instanceof ItemMeta;
+            } else if (name.equals("equals") && args.length == 2) {
+                return StubItemMeta.isEqual((ItemMeta) args[0], (ItemMeta) args[1]);
+            } else if (name.equals("asMetaFor")) {
+                return args[0];
+            }
+            return UNHANDLED;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.jselby.ej.sim;
+
+import java.util.Arrays;
+
+/**
+ * Records a measurement for each tick, such as how long it took, and
+ * summarises them as percentiles.
+ *
+ * @author James
+ */
+public class TickSamples {
+    private long[] samples = new long[1024];
+    private int count;
+
+    /**
+     * Records a tick
+     *
+     * @param sample The tick's measurement
+     */
+    public void add(long sample) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = sample;
+    }
+
+    /**
+     * Forgets every recorded tick
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns a percentile of the recorded ticks, using the nearest rank
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The measurement at that percentile
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.min(Math.max(rank, 1), count) - 1];
+    }
+
+    /**
+     * Returns the average of the recorded ticks
+     *
+     * @return The mean measurement
+     */
+    public double getMean() {
+        if (count == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += samples[i];
+        }
+        return total / count;
+    }
+
+    /**
+     * Returns the largest recorded measurement
+     *
+     * @return The largest measurement
+     */
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+}
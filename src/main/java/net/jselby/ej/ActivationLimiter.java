@@ -0,0 +1,76 @@
+package net.jselby.ej;
+
+import java.util.Arrays;
+
+/**
+ * Limits how often each player can activate a single Jetpack, using a token
+ * bucket per player. Each activation takes a token, and tokens come back at a
+ * steady rate, up to a limit, so short bursts are allowed but constant
+ * spamming is not.
+ * <p/>
+ * Buckets are refilled lazily, from the tick they were last checked on, so
+ * nothing has to be updated every tick. A player whose bucket has never been
+ * checked, or has been cleared, starts with a full bucket.
+ */
+class ActivationLimiter {
+    private static final long FULL = -1;
+
+    private final double ratePerTick;
+    private final double burst;
+    private double[] tokens = new double[0];
+    private long[] checked = new long[0];
+
+    /**
+     * Creates a limiter
+     *
+     * @param ratePerSecond How many activations come back each second
+     * @param burst         The most activations that can be saved up
+     */
+    ActivationLimiter(double ratePerSecond, int burst) {
+        this.ratePerTick = ratePerSecond / 20;
+        this.burst = burst;
+    }
+
+    /**
+     * Takes a activation from a player's bucket, if there is one
+     *
+     * @param index The player's index
+     * @param tick  The current tick
+     * @return If the player can activate the Jetpack
+     */
+    boolean tryAcquire(int index, long tick) {
+        if (index >= checked.length) {
+            int size = Math.max(checked.length * 2, index + 1);
+            int old = checked.length;
+            tokens = Arrays.copyOf(tokens, size);
+            checked = Arrays.copyOf(checked, size);
+            Arrays.fill(checked, old, size, FULL);
+        }
+
+        double available;
+        if (checked[index] == FULL) {
+            available = burst;
+        } else {
+            available = Math.min(burst, tokens[index] + (tick - checked[index]) * ratePerTick);
+        }
+        checked[index] = tick;
+
+        if (available < 1) {
+            tokens[index] = available;
+            return false;
+        }
+        tokens[index] = available - 1;
+        return true;
+    }
+
+    /**
+     * Refills a player's bucket, once they have left
+     *
+     * @param index The player's index
+     */
+    void clear(int index) {
+        if (index < checked.length) {
+            checked[index] = FULL;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.logging.Logger;
+
+/**
+ * Records what Jetpacks are doing for a profiler, such as Java Flight
+ * Recorder. Recording is turned off unless it has been enabled in the
+ * configuration, and while it is off, each of the record methods only checks
+ * a single field.
+ */
+public abstract class ActivityRecorder {
+    private static final String JFR_CLASS = "jdk.jfr.FlightRecorder";
+    private static final String JFR_RECORDER = "net.jselby.ej.impl.JfrActivityRecorder";
+
+    private static ActivityRecorder recorder;
+
+    public abstract void dispatch(Player player, FlightTypes type, Jetpack jetpack, boolean result);
+
+    public abstract void fuelBurned(Player player, double burned, double remaining);
+
+    public abstract void durabilityDamaged(Player player, Jetpack.Slot slot, int durability,
+                                           int maximum, boolean broken);
+
+    public abstract void teleported(Player player, Location from, Location to);
+
+    public abstract void sessionStarted(Player player, Jetpack jetpack);
+
+    public abstract void sessionStopped(Player player, Jetpack jetpack, long ticks);
+
+    /**
+     * Starts or stops recording. Flight Recorder events are only registered
+     * if the JVM has Flight Recorder; otherwise, recording stays off.
+     *
+     * @param enabled Should activity be recorded?
+     * @param logger  A logger to report problems with
+     */
+    static void install(boolean enabled, Logger logger) {
+        if (!enabled) {
+            recorder = null;
+            return;
+        }
+        if (recorder != null) {
+            return;
+        }
+
+        try {
+            Class.forName(JFR_CLASS);
+        } catch (ClassNotFoundException e) {
+            logger.warning("Flight Recorder isn't available in this JVM, "
+                    + "so Jetpack activity won't be recorded.");
+            return;
+        }
+
+        try {
+            recorder = (ActivityRecorder) Class.forName(JFR_RECORDER).newInstance();
+        } catch (Exception e) {
+            logger.warning("Could not start recording Jetpack activity: "
+                    + e.getClass().getName() + ": " + e.getMessage());
+        } catch (LinkageError e) {
+            logger.warning("Could not start recording Jetpack activity: "
+                    + e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a event being passed to the Jetpacks
+     *
+     * @param player  The player who triggered the event
+     * @param type    The type of event
+     * @param jetpack The Jetpack which handled it, or null if none did
+     * @param result  Whether the event succeeded
+     */
+    public static void recordDispatch(Player player, FlightTypes type, Jetpack jetpack, boolean result) {
+        if (recorder != null) {
+            recorder.dispatch(player, type, jetpack, result);
+        }
+    }
+
+    /**
+     * Records fuel being burnt
+     *
+     * @param player    The player whose fuel burned
+     * @param burned    How many percent of the item burned
+     * @param remaining How many percent of the item is left
+     */
+    public static void recordFuelBurned(Player player, double burned, double remaining) {
+        if (recorder != null) {
+            recorder.fuelBurned(player, burned, remaining);
+        }
+    }
+
+    /**
+     * Records a Jetpack being damaged
+     *
+     * @param player     The player wearing the Jetpack
+     * @param slot       The slot the Jetpack is in
+     * @param durability The Jetpack's new durability
+     * @param maximum    The durability at which it breaks
+     * @param broken     If the Jetpack broke
+     */
+    public static void recordDurabilityDamaged(Player player, Jetpack.Slot slot, int durability,
+                                               int maximum, boolean broken) {
+        if (recorder != null) {
+            recorder.durabilityDamaged(player, slot, durability, maximum, broken);
+        }
+    }
+
+    /**
+     * Records a player being teleported by a Jetpack
+     *
+     * @param player The player who teleported
+     * @param from   Where they were
+     * @param to     Where they went
+     */
+    public static void recordTeleport(Player player, Location from, Location to) {
+        if (recorder != null) {
+            recorder.teleported(player, from, to);
+        }
+    }
+
+    /**
+     * Records a constant crouch or timered flight starting
+     *
+     * @param player  The player who is flying
+     * @param jetpack The Jetpack they are flying with
+     */
+    public static void recordSessionStart(Player player, Jetpack jetpack) {
+        if (recorder != null) {
+            recorder.sessionStarted(player, jetpack);
+        }
+    }
+
+    /**
+     * Records a constant crouch or timered flight finishing
+     *
+     * @param player  The player who was flying
+     * @param jetpack The Jetpack they were flying with
+     * @param ticks   How many ticks the flight lasted
+     */
+    public static void recordSessionStop(Player player, Jetpack jetpack, long ticks) {
+        if (recorder != null) {
+            recorder.sessionStopped(player, jetpack, ticks);
+        }
+    }
+}
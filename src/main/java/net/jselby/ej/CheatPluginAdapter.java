@@ -4,10 +4,11 @@ import net.jselby.ej.impl.AntiCheatImpl;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 public abstract class CheatPluginAdapter {
-    private static ArrayList<CheatPluginAdapter> adapters = new ArrayList<CheatPluginAdapter>();
+    private static volatile CheatPluginAdapter[] adapters = new CheatPluginAdapter[0];
+    private static JetpackManager manager;
 
     public abstract void exemptPlayer(Player player,
                                       CheatPluginAdapter.Type type);
@@ -27,20 +28,53 @@ public abstract class CheatPluginAdapter {
     public static void run() {
         if (Bukkit.getServer().getPluginManager().getPlugin("AntiCheat") != null) {
             System.out.println("AntiCheat found! Hooking API...");
-            adapters.add(new AntiCheatImpl());
+            register(new AntiCheatImpl());
         }
     }
 
+    /**
+     * Adds a adapter, which will be told about exemptions from now on
+     *
+     * @param adapter The adapter to add
+     */
+    public static synchronized void register(CheatPluginAdapter adapter) {
+        CheatPluginAdapter[] updated = Arrays.copyOf(adapters, adapters.length + 1);
+        updated[adapters.length] = adapter;
+        adapters = updated;
+    }
+
+    /**
+     * Returns the hooked adapters. The array is replaced rather than changed
+     * when a adapter is added, so it can be iterated over without copying.
+     *
+     * @return A array of adapters, which must not be modified
+     */
+    static CheatPluginAdapter[] getAdapters() {
+        return adapters;
+    }
+
+    /**
+     * Sets which JetpackManager keeps track of exemptions, when one is
+     * created.
+     *
+     * @param current The new JetpackManager
+     */
+    static void setManager(JetpackManager current) {
+        manager = current;
+    }
+
     /**
      * Calls all CheatPluginAdapters with these applicable arguments. For example, this
-     * could invoke all anti-cheat plugins to allow flying.
+     * could invoke all anti-cheat plugins to allow flying. Exemptions are
+     * counted, so the player stays exempt until removeException() has been
+     * called as many times as this was.
      *
      * @param player The player to add the exemption to
      * @param type   The type of exemption
      */
     public static void addException(Player player, CheatPluginAdapter.Type type) {
-        for (CheatPluginAdapter adp : adapters.toArray(new CheatPluginAdapter[adapters.size()])) {
-            adp.exemptPlayer(player, type);
+        if (adapters.length != 0 && manager != null) {
+            manager.getExemptions().acquire(player, type);
         }
     }
 
@@ -52,17 +86,34 @@ public abstract class CheatPluginAdapter {
      */
     public static void removeException(Player player,
                                        CheatPluginAdapter.Type type) {
-        for (CheatPluginAdapter adp : adapters.toArray(new CheatPluginAdapter[adapters.size()])) {
-            adp.unexemptPlayer(player, type);
+        if (adapters.length != 0 && manager != null) {
+            manager.getExemptions().release(player, type);
         }
     }
 
-    public static boolean exempted(Player player, CheatPluginAdapter.Type type) {
-        for (CheatPluginAdapter adp : adapters.toArray(new CheatPluginAdapter[adapters.size()])) {
-            if (!adp.isExempted(player, type)) {
-                return false;
-            }
+    /**
+     * Exempts a player for a short while. The exemption lasts until the
+     * grace period in the configuration has passed and the player is on the
+     * ground; calling this again before then extends it.
+     *
+     * @param player The player to add the exemption to
+     * @param type   The type of exemption
+     */
+    public static void leaseException(Player player, CheatPluginAdapter.Type type) {
+        if (adapters.length != 0 && manager != null) {
+            manager.leaseExemption(player, type);
         }
-        return true;
+    }
+
+    /**
+     * Checks if a player has been exempted. This is answered from what
+     * EasyJetpack has told the anti-cheat plugins, rather than by asking them.
+     *
+     * @param player The player to check
+     * @param type   The type of exemption
+     * @return If the player is exempt, or true if there are no anti-cheat plugins
+     */
+    public static boolean exempted(Player player, CheatPluginAdapter.Type type) {
+        return adapters.length == 0 || (manager != null && manager.getExemptions().isExempt(player, type));
     }
 }
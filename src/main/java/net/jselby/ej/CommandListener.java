@@ -9,6 +9,8 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.Map;
+
 public class CommandListener implements CommandExecutor {
     private final static String PREFIX = ChatColor.GOLD + "[" + ChatColor.BLUE
             + "EJ" + ChatColor.GOLD + "]" + ChatColor.RESET + " ";
@@ -34,7 +36,7 @@ public class CommandListener implements CommandExecutor {
                         + "No jetpack was found by that name. "
                         + "Try /ej list to find available jetpacks.");
             } else if (sender instanceof Player) {
-                ((Player) sender).getInventory().addItem(jetpack.getItem());
+                ((Player) sender).getInventory().addItem(EasyJetpackAPI.getManager().createItem(jetpack));
                 sender.sendMessage(PREFIX + ChatColor.GREEN + "Obtained a "
                         + ChatColor.RESET + jetpack.getName());
             } else {
@@ -54,7 +56,7 @@ public class CommandListener implements CommandExecutor {
                     sender.sendMessage(PREFIX + ChatColor.RED
                             + "No player was found by that name.");
                 } else {
-                    player.getInventory().addItem(jetpack.getItem());
+                    player.getInventory().addItem(EasyJetpackAPI.getManager().createItem(jetpack));
                 }
             }
         } else if (args.length == 1 && args[0].equalsIgnoreCase("help")) {
@@ -67,8 +69,16 @@ public class CommandListener implements CommandExecutor {
                 sender.sendMessage(PREFIX + "         Give name: "
                         + jetpack.getGiveName());
             }
+        } else if (args.length == 1 && args[0].equalsIgnoreCase("perf")) {
+            showTimings(sender);
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("perf")
+                && args[1].equalsIgnoreCase("reset")) {
+            JetpackManager manager = EasyJetpackAPI.getManager();
+            manager.getPerformanceMonitor().reset(manager.getCurrentTick());
+            sender.sendMessage(PREFIX + ChatColor.GREEN
+                    + "Reset Jetpack timings.");
         } else if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
-            EasyJetpack.getInstance().reloadConfig();
+            EasyJetpack.getInstance().reloadSettings();
             sender.sendMessage(PREFIX + ChatColor.GREEN
                     + "Reloaded configuration!");
         } else {
@@ -89,10 +99,66 @@ public class CommandListener implements CommandExecutor {
         sender.sendMessage(PREFIX + "         Gives a jetpack by it's name.");
         sender.sendMessage(PREFIX + "   /ej list");
         sender.sendMessage(PREFIX + "         Lists available jetpacks.");
+        sender.sendMessage(PREFIX + "   /ej perf [reset]");
+        sender.sendMessage(PREFIX + "         Shows how long each Jetpack is taking.");
         sender.sendMessage(PREFIX + "   /ej reload");
         sender.sendMessage(PREFIX + "         Reloads the configuration.");
         sender.sendMessage(PREFIX + "   /ej help");
         sender.sendMessage(PREFIX + "         Shows this help message.");
     }
 
+    /**
+     * Shows how long each Jetpack's events have taken since the timings were
+     * last reset, as calls per second, percentiles, and their share of the 50
+     * millisecond tick.
+     *
+     * @param sender The player/console to send the timings to
+     */
+    private void showTimings(CommandSender sender) {
+        JetpackManager manager = EasyJetpackAPI.getManager();
+        PerformanceMonitor monitor = manager.getPerformanceMonitor();
+        double seconds = (System.nanoTime() - monitor.getResetAt()) / 1e9;
+        long ticks = Math.max(1, manager.getCurrentTick() - monitor.getResetTick());
+
+        sender.sendMessage(PREFIX + String.format("Jetpack timings over %.1f seconds (%d ticks):",
+                seconds, ticks));
+        boolean any = false;
+        for (Map.Entry<String, PerformanceMonitor.Timings[]> entry : monitor.getAll().entrySet()) {
+            boolean shown = false;
+            for (int stage = 0; stage < entry.getValue().length; stage++) {
+                PerformanceMonitor.Timings timings = entry.getValue()[stage];
+                long calls = timings.getCalls();
+                if (calls == 0) {
+                    continue;
+                }
+                if (!shown) {
+                    sender.sendMessage(PREFIX + "   " + ChatColor.GOLD + entry.getKey());
+                    shown = true;
+                }
+                sender.sendMessage(PREFIX + String.format(
+                        "         %s: %.1f/s, p50 %s, p99 %s, max %s, %.3f%% of tick",
+                        PerformanceMonitor.STAGE_NAMES[stage], calls / seconds,
+                        formatNanos(timings.getPercentile(50)), formatNanos(timings.getPercentile(99)),
+                        formatNanos(timings.getMaxNanos()),
+                        timings.getTotalNanos() / (ticks * 50e6) * 100));
+            }
+            any |= shown;
+        }
+
+        if (!any) {
+            sender.sendMessage(PREFIX + "   Nothing has been timed yet.");
+        } else {
+            sender.sendMessage(PREFIX + "Fly times include the effects they played.");
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        } else if (nanos < 1000000) {
+            return String.format("%.1fus", nanos / 1e3);
+        }
+        return String.format("%.2fms", nanos / 1e6);
+    }
+
 }
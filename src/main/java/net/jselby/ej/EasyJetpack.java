@@ -4,7 +4,9 @@ import net.jselby.ej.api.EasyJetpackAPI;
 import net.jselby.ej.impl.*;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 import org.mcstats.Metrics;
 import org.mcstats.Metrics.Graph;
 import org.mcstats.Metrics.Plotter;
@@ -20,6 +22,25 @@ import java.io.IOException;
  */
 public class EasyJetpack extends JavaPlugin {
     private static EasyJetpack instance;
+    private volatile Settings settings;
+    private JetpackManager manager;
+
+    public EasyJetpack() {
+    }
+
+    /**
+     * Creates the plugin without a server's plugin loader, for running
+     * EasyJetpack headless (such as in the simulator).
+     *
+     * @param loader      A loader for the stand-in server
+     * @param description The plugin's description
+     * @param dataFolder  Where the configuration is read from
+     * @param file        The plugin's jar file
+     */
+    protected EasyJetpack(JavaPluginLoader loader, PluginDescriptionFile description,
+                          File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
@@ -53,25 +74,7 @@ public class EasyJetpack extends JavaPlugin {
         // Register the command listener
         getServer().getPluginCommand("ej").setExecutor(new CommandListener());
 
-        // Creates a manager, which internal/external code will use
-        JetpackManager manager = new JetpackManager(this);
-
-        // Register our default Jetpacks
-        if (getConfig().getBoolean("jetpacks.traditional.enabled", true))
-            manager.addJetpack(new TraditionalJetpack());
-        if (getConfig().getBoolean("jetpacks.burst.enabled", true))
-            manager.addJetpack(new BurstJetpack());
-        if (getConfig().getBoolean("jetpacks.teleport.enabled", true))
-            manager.addJetpack(new TeleportJetpack());
-        if (getConfig().getBoolean("jetpacks.hover.enabled", true)) {
-            manager.addJetpack(new HoverJetpack());
-            manager.addJetpack(new HoverJetpackController());
-        }
-        if (getConfig().getBoolean("jetpacks.boots.enabled", true))
-            manager.addJetpack(new Fallboots());
-
-        // Make the API ready for use
-        new EasyJetpackAPI(manager);
+        loadJetpacks();
 
         // Load Metrics
         try {
@@ -116,8 +119,43 @@ public class EasyJetpack extends JavaPlugin {
                         + ") has been successfully enabled!");
     }
 
+    /**
+     * Compiles the configuration, creates the JetpackManager and registers the
+     * default Jetpacks. This is the part of enabling the plugin which doesn't
+     * need anything else from the server.
+     */
+    void loadJetpacks() {
+        EasyJetpack.instance = this;
+        settings = Settings.compile(getConfig(), getLogger());
+        ActivityRecorder.install(settings.isJfrEnabled(), getLogger());
+
+        // Creates a manager, which internal/external code will use
+        manager = new JetpackManager(this);
+
+        // Register our default Jetpacks
+        if (settings.getTraditional().isEnabled())
+            manager.addJetpack(new TraditionalJetpack());
+        if (settings.getBurst().isEnabled())
+            manager.addJetpack(new BurstJetpack());
+        if (settings.getTeleport().isEnabled())
+            manager.addJetpack(new TeleportJetpack());
+        if (settings.getHover().isEnabled()) {
+            manager.addJetpack(new HoverJetpack());
+            manager.addJetpack(new HoverJetpackController());
+        }
+        if (settings.getBoots().isEnabled())
+            manager.addJetpack(new Fallboots());
+
+        // Make the API ready for use
+        new EasyJetpackAPI(manager);
+    }
+
     @Override
     public void onDisable() {
+        // Players shouldn't be left able to fly
+        if (manager != null) {
+            manager.getNativeFlight().stopAll();
+        }
         Bukkit.getServer().resetRecipes();
     }
 
@@ -130,6 +168,29 @@ public class EasyJetpack extends JavaPlugin {
         return instance;
     }
 
+    /**
+     * Obtains the compiled configuration. This should be used instead of
+     * getConfig() by anything which runs often.
+     *
+     * @return The current Settings
+     */
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Reloads config.yml from disk, and replaces the current Settings with a
+     * newly compiled copy.
+     */
+    public void reloadSettings() {
+        reloadConfig();
+        settings = Settings.compile(getConfig(), getLogger());
+        ActivityRecorder.install(settings.isJfrEnabled(), getLogger());
+        if (manager != null) {
+            manager.refresh();
+        }
+    }
+
     /**
      * Checks if EasyJetpack has allowed a player to fly
      *
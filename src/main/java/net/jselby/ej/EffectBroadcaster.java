@@ -0,0 +1,185 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.EasyJetpackAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.Effect;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Sends effects to the players who are close enough to see them. The online
+ * players, and where they are, are copied once per tick; every effect in that
+ * tick is then checked against the copy rather than asking the server again.
+ * <p/>
+ * This also decides how detailed effects should be. While the server is
+ * falling behind, the level of detail drops, and no more than the configured
+ * budget of effects is sent in a single tick.
+ */
+class EffectBroadcaster {
+    /**
+     * Every effect is shown, every tick
+     */
+    static final int LEVEL_FULL = 0;
+    /**
+     * Flyers show effects every second tick
+     */
+    static final int LEVEL_REDUCED = 1;
+    /**
+     * Flyers show a single effect every fourth tick
+     */
+    static final int LEVEL_MINIMAL = 2;
+
+    private Player[] players = new Player[16];
+    private World[] worlds = new World[16];
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private double[] zs = new double[16];
+    private int count;
+    private long snapshotTick = -1;
+    private final Location scratch = new Location(null, 0, 0, 0);
+
+    // Recipients of the current effect, as (distance bits << 32 | index)
+    private long[] candidates = new long[16];
+
+    private int level;
+    private int sent;
+
+    /**
+     * Returns the level of detail effects should be shown with this tick
+     *
+     * @return One of the LEVEL constants
+     */
+    int getLevel() {
+        snapshot();
+        return level;
+    }
+
+    /**
+     * Checks if a flyer should show effects this tick, for the current level
+     * of detail. Flyers are spread across ticks by their player index.
+     *
+     * @param player The player who is flying
+     * @return If effects should be shown for them
+     */
+    boolean shouldEmit(Player player) {
+        int current = getLevel();
+        if (current == LEVEL_FULL) {
+            return true;
+        }
+
+        int interval = current == LEVEL_REDUCED ? 2 : 4;
+        return (snapshotTick + EasyJetpackAPI.getManager().indexOf(player)) % interval == 0;
+    }
+
+    /**
+     * Plays a effect to every player in the same world, within a radius.
+     *
+     * @param effect The effect to play
+     * @param at     Where the effect should be played
+     * @param data   The data value of the effect
+     * @param radius How far away the effect can be seen, or a negative number
+     *               for the whole world
+     */
+    @SuppressWarnings("deprecation")
+    void play(Effect effect, Location at, int data, double radius) {
+        snapshot();
+
+        int budget = EasyJetpack.getInstance().getSettings().getEffectBudget();
+        int remaining = budget < 0 ? Integer.MAX_VALUE : budget - sent;
+        if (remaining <= 0) {
+            return;
+        }
+
+        World world = at.getWorld();
+        double x = at.getX();
+        double y = at.getY();
+        double z = at.getZ();
+        double radiusSquared = radius * radius;
+
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (worlds[i] != world) {
+                continue;
+            }
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (radius >= 0 && distance > radiusSquared) {
+                continue;
+            }
+
+            // Positive floats sort in the same order as their bits
+            candidates[found++] = ((long) Float.floatToIntBits((float) distance) << 32) | i;
+        }
+
+        // If not everyone can get this effect, the closest players get it first
+        if (found > remaining) {
+            Arrays.sort(candidates, 0, found);
+            found = remaining;
+        }
+
+        for (int i = 0; i < found; i++) {
+            players[(int) candidates[i]].playEffect(at, effect, data);
+        }
+        sent += found;
+    }
+
+    /**
+     * Copies the online players and their positions, and works out the level
+     * of detail, if it hasn't been done yet this tick.
+     */
+    private void snapshot() {
+        long tick = EasyJetpackAPI.getManager().getCurrentTick();
+        if (tick == snapshotTick) {
+            return;
+        }
+        snapshotTick = tick;
+        sent = 0;
+
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        double tickMillis = EasyJetpackAPI.getManager().getAverageTickMillis();
+        if (!settings.isEffectLodEnabled() || tickMillis < settings.getEffectLodReduce()) {
+            level = LEVEL_FULL;
+        } else if (tickMillis < settings.getEffectLodMinimal()) {
+            level = LEVEL_REDUCED;
+        } else {
+            level = LEVEL_MINIMAL;
+        }
+
+        Collection<? extends Player> online = Bukkit.getOnlinePlayers();
+        if (online.size() > players.length) {
+            int size = Math.max(players.length * 2, online.size());
+            players = new Player[size];
+            worlds = new World[size];
+            xs = new double[size];
+            ys = new double[size];
+            zs = new double[size];
+            candidates = new long[size];
+        }
+
+        count = 0;
+        for (Player player : online) {
+            if (count == players.length) {
+                break;
+            }
+            player.getLocation(scratch);
+            players[count] = player;
+            worlds[count] = scratch.getWorld();
+            xs[count] = scratch.getX();
+            ys[count] = scratch.getY();
+            zs[count] = scratch.getZ();
+            count++;
+        }
+
+        // Don't hold onto players who have left
+        for (int i = count; i < players.length && players[i] != null; i++) {
+            players[i] = null;
+            worlds[i] = null;
+        }
+    }
+}
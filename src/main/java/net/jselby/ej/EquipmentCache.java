@@ -0,0 +1,161 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.Jetpack;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+
+/**
+ * Remembers which registered Jetpack each player has in each slot, so that
+ * checking what a player is wearing doesn't need to read their inventory and
+ * compare items every time.
+ * <p/>
+ * A player's record is recalculated only after it has been invalidated by a
+ * event that could change their equipment. Bukkit calls these events before
+ * the inventory is changed, so a record is not trusted again until the tick
+ * after it was invalidated.
+ */
+class EquipmentCache {
+    private static final Jetpack.Slot[] SLOTS = Jetpack.Slot.values();
+
+    private final JetpackManager manager;
+    private final PlayerIndex players;
+    private PlayerEquipment[] records = new PlayerEquipment[16];
+    private RegisteredJetpack[][] candidates = new RegisteredJetpack[SLOTS.length][0];
+    private int registryVersion;
+
+    EquipmentCache(JetpackManager manager, PlayerIndex players) {
+        this.manager = manager;
+        this.players = players;
+    }
+
+    /**
+     * Sets the Jetpacks that can be found in each slot. This invalidates every
+     * player's record.
+     *
+     * @param candidates The registered Jetpacks, indexed by Slot ordinal
+     */
+    void setCandidates(RegisteredJetpack[][] candidates) {
+        this.candidates = candidates;
+        registryVersion++;
+    }
+
+    /**
+     * Finds the registered Jetpack that the player has in a slot.
+     *
+     * @param player The player to check
+     * @param slot   The slot to check
+     * @return A RegisteredJetpack, or null if the slot doesn't contain one
+     */
+    RegisteredJetpack getEquipped(Player player, Jetpack.Slot slot) {
+        return getRecord(player).slots[slot.ordinal()];
+    }
+
+    /**
+     * Returns a number which changes whenever the Jetpacks the player has
+     * equipped change.
+     *
+     * @param player The player to check
+     * @return A version stamp
+     */
+    int getVersion(Player player) {
+        return getRecord(player).version;
+    }
+
+    /**
+     * Marks a player's record as out of date.
+     *
+     * @param player The player whose equipment may have changed
+     */
+    void invalidate(Player player) {
+        int index = players.indexOf(player);
+        if (index < records.length && records[index] != null) {
+            records[index].invalidatedAt = manager.getCurrentTick();
+        }
+    }
+
+    /**
+     * Forgets about a player, for example when they leave the server.
+     *
+     * @param index The index of the player to remove
+     */
+    void remove(int index) {
+        if (index < records.length) {
+            records[index] = null;
+        }
+    }
+
+    private PlayerEquipment getRecord(Player player) {
+        int index = players.indexOf(player);
+        if (index >= records.length) {
+            records = Arrays.copyOf(records, Math.max(records.length * 2, index + 1));
+        }
+
+        PlayerEquipment record = records[index];
+        if (record == null) {
+            record = new PlayerEquipment();
+            records[index] = record;
+        }
+
+        long tick = manager.getCurrentTick();
+        if (record.registryVersion != registryVersion || record.calculatedAt <= record.invalidatedAt) {
+            recalculate(player, record);
+            record.registryVersion = registryVersion;
+            record.calculatedAt = tick;
+        }
+        return record;
+    }
+
+    private void recalculate(Player player, PlayerEquipment record) {
+        boolean changed = false;
+        for (Jetpack.Slot slot : SLOTS) {
+            RegisteredJetpack found = null;
+            RegisteredJetpack[] slotCandidates = candidates[slot.ordinal()];
+            if (slotCandidates.length > 0) {
+                found = findJetpack(Utils.getSlot(player, slot), slotCandidates);
+            }
+
+            if (record.slots[slot.ordinal()] != found) {
+                record.slots[slot.ordinal()] = found;
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            record.version++;
+        }
+    }
+
+    private static RegisteredJetpack findJetpack(ItemStack item, RegisteredJetpack[] slotCandidates) {
+        if (item == null || !item.hasItemMeta()) {
+            return null;
+        }
+
+        ItemMeta meta = null;
+        for (RegisteredJetpack next : slotCandidates) {
+            if (next.getFingerprint().getMaterial() != item.getType()) {
+                continue;
+            }
+            if (meta == null) {
+                meta = item.getItemMeta();
+            }
+            if (next.getFingerprint().matches(item.getType(), meta)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The Jetpacks a single player has equipped
+     */
+    private static class PlayerEquipment {
+        private final RegisteredJetpack[] slots = new RegisteredJetpack[SLOTS.length];
+        private int version;
+        private int registryVersion = -1;
+        private long calculatedAt = -1;
+        private long invalidatedAt = -1;
+    }
+}
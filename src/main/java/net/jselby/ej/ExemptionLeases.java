@@ -0,0 +1,219 @@
+package net.jselby.ej;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of which players are exempt from anti-cheat checks, so asking
+ * never has to go to the anti-cheat plugins themselves. Each player and type
+ * of exemption has a reference count; the anti-cheat plugins are only told
+ * when it goes from zero to one, and back.
+ * <p/>
+ * Flying holds a lease, which is renewed every time the player's Jetpack is
+ * used. Leases are kept in a hashed timing wheel of one slot per tick, so
+ * renewing one is O(1), and only the leases in the current slot are looked
+ * at each tick. A lease which runs out while the player is still in the air
+ * is checked again a few ticks later, so it is released once they have
+ * landed and the grace period has passed.
+ */
+class ExemptionLeases {
+    private static final CheatPluginAdapter.Type[] TYPES = CheatPluginAdapter.Type.values();
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NONE = -1;
+    /**
+     * How long to wait before checking again if a player who is still in the
+     * air has landed
+     */
+    private static final int AIRBORNE_RECHECK = 4;
+
+    private final PlayerIndex players;
+    private Player[] byIndex = new Player[0];
+
+    // Indexed by player index * TYPES.length + type ordinal
+    private int[] counts = new int[0];
+    private long[] expiry = new long[0];
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+
+    private final int[] wheel = new int[WHEEL_SIZE];
+    private long currentTick;
+
+    ExemptionLeases(PlayerIndex players) {
+        this.players = players;
+        Arrays.fill(wheel, NONE);
+    }
+
+    /**
+     * Exempts a player until release() is called
+     *
+     * @param player The player to exempt
+     * @param type   The type of exemption
+     */
+    void acquire(Player player, CheatPluginAdapter.Type type) {
+        int key = keyOf(player, type);
+        increment(key, player, type);
+    }
+
+    /**
+     * Gives up a exemption taken by acquire()
+     *
+     * @param player The player to release
+     * @param type   The type of exemption
+     */
+    void release(Player player, CheatPluginAdapter.Type type) {
+        int key = keyOf(player, type);
+        decrement(key, type);
+    }
+
+    /**
+     * Exempts a player until a tick, and for as long after that as they are
+     * still in the air. Leasing again before then moves the expiry, rather
+     * than taking another reference.
+     *
+     * @param player The player to exempt
+     * @param type   The type of exemption
+     * @param until  The tick the lease runs out on
+     */
+    void lease(Player player, CheatPluginAdapter.Type type, long until) {
+        int key = keyOf(player, type);
+        if (expiry[key] == 0) {
+            increment(key, player, type);
+        } else {
+            unlink(key);
+        }
+        expiry[key] = Math.max(until, currentTick + 1);
+        link(key);
+    }
+
+    /**
+     * Checks if a player is exempt, from what the anti-cheat plugins have
+     * been told
+     *
+     * @param player The player to check
+     * @param type   The type of exemption
+     * @return If the player holds the exemption
+     */
+    boolean isExempt(Player player, CheatPluginAdapter.Type type) {
+        int index = players.find(player);
+        if (index == -1) {
+            return false;
+        }
+        int key = index * TYPES.length + type.ordinal();
+        return key < counts.length && counts[key] > 0;
+    }
+
+    /**
+     * Releases the leases which have run out, up to and including a tick
+     *
+     * @param tick The current tick
+     */
+    void advance(long tick) {
+        while (currentTick < tick) {
+            currentTick++;
+            int slot = (int) (currentTick & WHEEL_MASK);
+            int key = wheel[slot];
+            while (key != NONE) {
+                int following = next[key];
+                if (expiry[key] <= currentTick) {
+                    expire(key);
+                }
+                key = following;
+            }
+        }
+    }
+
+    private void expire(int key) {
+        unlink(key);
+        Player player = byIndex[key / TYPES.length];
+        if (player != null && player.isOnline() && !player.isOnGround()) {
+            expiry[key] = currentTick + AIRBORNE_RECHECK;
+            link(key);
+            return;
+        }
+
+        expiry[key] = 0;
+        decrement(key, TYPES[key % TYPES.length]);
+    }
+
+    /**
+     * Releases every exemption a player holds, once they have left
+     *
+     * @param index The index of the player who left
+     */
+    void remove(int index) {
+        if (index >= byIndex.length) {
+            return;
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            int key = index * TYPES.length + type;
+            if (expiry[key] != 0) {
+                unlink(key);
+                expiry[key] = 0;
+            }
+            if (counts[key] > 0) {
+                counts[key] = 1;
+                decrement(key, TYPES[type]);
+            }
+        }
+        byIndex[index] = null;
+    }
+
+    private void increment(int key, Player player, CheatPluginAdapter.Type type) {
+        if (counts[key]++ == 0) {
+            for (CheatPluginAdapter adapter : CheatPluginAdapter.getAdapters()) {
+                adapter.exemptPlayer(player, type);
+            }
+        }
+    }
+
+    private void decrement(int key, CheatPluginAdapter.Type type) {
+        if (counts[key] == 0) {
+            return;
+        }
+        Player player = byIndex[key / TYPES.length];
+        if (--counts[key] == 0 && player != null) {
+            for (CheatPluginAdapter adapter : CheatPluginAdapter.getAdapters()) {
+                adapter.unexemptPlayer(player, type);
+            }
+        }
+    }
+
+    private void link(int key) {
+        int slot = (int) (expiry[key] & WHEEL_MASK);
+        previous[key] = NONE;
+        next[key] = wheel[slot];
+        if (wheel[slot] != NONE) {
+            previous[wheel[slot]] = key;
+        }
+        wheel[slot] = key;
+    }
+
+    private void unlink(int key) {
+        if (previous[key] != NONE) {
+            next[previous[key]] = next[key];
+        } else {
+            wheel[(int) (expiry[key] & WHEEL_MASK)] = next[key];
+        }
+        if (next[key] != NONE) {
+            previous[next[key]] = previous[key];
+        }
+        next[key] = NONE;
+        previous[key] = NONE;
+    }
+
+    private int keyOf(Player player, CheatPluginAdapter.Type type) {
+        int index = players.indexOf(player);
+        if (index >= byIndex.length) {
+            int size = Math.max(byIndex.length * 2, index + 1);
+            byIndex = Arrays.copyOf(byIndex, size);
+            counts = Arrays.copyOf(counts, size * TYPES.length);
+            expiry = Arrays.copyOf(expiry, size * TYPES.length);
+            next = Arrays.copyOf(next, size * TYPES.length);
+            previous = Arrays.copyOf(previous, size * TYPES.length);
+        }
+        byIndex[index] = player;
+        return index * TYPES.length + type.ordinal();
+    }
+}
@@ -0,0 +1,218 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.EasyJetpackAPI;
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.JetpackEvent;
+import org.bukkit.GameMode;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+import org.bukkit.event.entity.EntityToggleGlideEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerToggleFlightEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * The listeners which turn server events into JetpackEvents, one for each
+ * FlightTypes. A listener is only registered while a registered Jetpack
+ * could respond to its type, so servers without, for example, a Jetpack that
+ * responds to being attacked never pass attacks to EasyJetpack at all.
+ * <p/>
+ * Listeners which keep track of the player's state, rather than creating
+ * JetpackEvents, are in JetpackListener, and are always registered.
+ */
+class FlightListeners {
+    private static final FlightTypes[] TYPES = FlightTypes.values();
+
+    private final Plugin plugin;
+    private final Listener[] listeners = new Listener[TYPES.length];
+    private final boolean[] registered = new boolean[TYPES.length];
+
+    FlightListeners(Plugin plugin) {
+        this.plugin = plugin;
+        listeners[FlightTypes.CROUCH.ordinal()] = new CrouchListener();
+        listeners[FlightTypes.FALLING.ordinal()] = new FallingListener();
+        listeners[FlightTypes.DROWNING.ordinal()] = new DrowningListener();
+        listeners[FlightTypes.INTERACT.ordinal()] = new InteractListener();
+        listeners[FlightTypes.DAMAGED_BY_PLAYER.ordinal()] = new DamagedByPlayerListener();
+        listeners[FlightTypes.DAMAGED_BY_MOB.ordinal()] = new DamagedByMobListener();
+        listeners[FlightTypes.ANVIL.ordinal()] = new AnvilListener();
+    }
+
+    /**
+     * Registers or unregisters the listener for a type of event
+     *
+     * @param type       The type of event
+     * @param interested Could any registered Jetpack respond to it?
+     */
+    void setInterested(FlightTypes type, boolean interested) {
+        Listener listener = listeners[type.ordinal()];
+        if (listener == null || registered[type.ordinal()] == interested) {
+            return;
+        }
+
+        registered[type.ordinal()] = interested;
+        if (interested) {
+            plugin.getServer().getPluginManager().registerEvents(listener, plugin);
+        } else {
+            HandlerList.unregisterAll(listener);
+        }
+    }
+
+    /**
+     * Checks if the listener for a type of event is registered
+     *
+     * @param type The type of event
+     * @return If events of that type are being listened for
+     */
+    boolean isRegistered(FlightTypes type) {
+        return registered[type.ordinal()];
+    }
+
+    /**
+     * Passes a event to the Jetpacks, and cancels the server's event if it
+     * should be
+     *
+     * @param event The event to pass on
+     * @param base  The server's event
+     */
+    private static void dispatch(JetpackEvent event, Cancellable base) {
+        cancelIfHandled(EasyJetpackAPI.getManager().onJetpackEvent(event), event, base);
+    }
+
+    /**
+     * Cancels the server's event if a Jetpack cancelled the JetpackEvent.
+     * Crouches and clicks are also cancelled if a Jetpack handled them, which,
+     * for ones collected until the end of the tick, is known when they are
+     * collected.
+     *
+     * @param handled If a Jetpack handled the event
+     * @param event   The event that was passed on
+     * @param base    The server's event
+     */
+    static void cancelIfHandled(boolean handled, JetpackEvent event, Cancellable base) {
+        if ((handled && IntentCoalescer.isCoalesced(event.getType())) || event.isCancelled()) {
+            base.setCancelled(true);
+        }
+    }
+
+    public static class CrouchListener implements Listener {
+        // Cancelled crouches are still handled, as they don't stop the player
+        // crouching, and the crouch state has to be kept up to date
+        @EventHandler
+        public void onPlayerToggleCrouchEvent(PlayerToggleSneakEvent evt) {
+            EasyJetpackAPI.getManager().setCrouching(evt.getPlayer(), evt.isSneaking());
+            // Activations over the Jetpack's rate limit are dropped here, before
+            // anything else is done with them
+            if (evt.isSneaking()
+                    && EasyJetpackAPI.getManager().tryActivate(evt.getPlayer(), FlightTypes.CROUCH)) {
+                dispatch(new JetpackEvent(evt.getPlayer(), FlightTypes.CROUCH, null, evt), evt);
+            }
+        }
+
+        @EventHandler(ignoreCancelled = true)
+        public void onFlightToggleEvent(PlayerToggleFlightEvent evt) {
+            if (evt.isFlying() || evt.getPlayer().getGameMode() == GameMode.CREATIVE
+                    || !EasyJetpack.getInstance().haveAllowedFlying(evt.getPlayer())) {
+                return;
+            }
+            if (EasyJetpackAPI.getManager().tryActivate(evt.getPlayer(), FlightTypes.CROUCH)) {
+                dispatch(new JetpackEvent(evt.getPlayer(), FlightTypes.CROUCH, null, evt), evt);
+            }
+        }
+
+        // Players aren't wearing a elytra while a Jetpack glides them, so the
+        // server tries to stop them gliding every tick
+        @EventHandler(ignoreCancelled = true)
+        public void onToggleGlide(EntityToggleGlideEvent evt) {
+            if (evt.isGliding() || !(evt.getEntity() instanceof Player)) {
+                return;
+            }
+            Player player = (Player) evt.getEntity();
+            if (!player.isOnGround() && EasyJetpackAPI.getManager().isGlideAssisted(player)) {
+                evt.setCancelled(true);
+            }
+        }
+    }
+
+    public static class FallingListener implements Listener {
+        @EventHandler(ignoreCancelled = true)
+        public void onPlayerDamage(EntityDamageEvent evt) {
+            if (evt.getCause() != DamageCause.FALL || !(evt.getEntity() instanceof Player)) {
+                return;
+            }
+            Player player = (Player) evt.getEntity();
+            dispatch(new JetpackEvent(player, FlightTypes.FALLING, null, evt), evt);
+        }
+    }
+
+    public static class DrowningListener implements Listener {
+        @EventHandler(ignoreCancelled = true)
+        public void onPlayerDamage(EntityDamageEvent evt) {
+            if (evt.getCause() != DamageCause.DROWNING || !(evt.getEntity() instanceof Player)) {
+                return;
+            }
+            Player player = (Player) evt.getEntity();
+            dispatch(new JetpackEvent(player, FlightTypes.DROWNING, null, evt), evt);
+        }
+    }
+
+    public static class InteractListener implements Listener {
+        // Right clicking air is passed on already cancelled, so cancelled
+        // interactions have to be handled too
+        @EventHandler
+        public void onPlayerInteract(PlayerInteractEvent evt) {
+            if (evt.getAction() == Action.PHYSICAL) {
+                return;
+            }
+            dispatch(new JetpackEvent(evt.getPlayer(), FlightTypes.INTERACT, null, evt), evt);
+        }
+    }
+
+    public static class DamagedByPlayerListener implements Listener {
+        @EventHandler(ignoreCancelled = true)
+        public void onPlayerAttacked(EntityDamageByEntityEvent evt) {
+            if (!(evt.getEntity() instanceof Player) || !(evt.getDamager() instanceof Player)) {
+                return;
+            }
+            Player player = (Player) evt.getEntity();
+            dispatch(new JetpackEvent(player, FlightTypes.DAMAGED_BY_PLAYER, null, evt), evt);
+        }
+    }
+
+    public static class DamagedByMobListener implements Listener {
+        @EventHandler(ignoreCancelled = true)
+        public void onPlayerAttacked(EntityDamageByEntityEvent evt) {
+            if (!(evt.getEntity() instanceof Player) || evt.getDamager() instanceof Player) {
+                return;
+            }
+            Player player = (Player) evt.getEntity();
+            dispatch(new JetpackEvent(player, FlightTypes.DAMAGED_BY_MOB, null, evt), evt);
+        }
+    }
+
+    public static class AnvilListener implements Listener {
+        @EventHandler(ignoreCancelled = true)
+        public void onPlayerRenameItem(InventoryClickEvent evt) {
+            if (evt.getRawSlot() != 2 || evt.getView().getType() != InventoryType.ANVIL
+                    || !(evt.getWhoClicked() instanceof Player)) {
+                return;
+            }
+            if (EasyJetpackAPI.getManager().isJetpack(evt.getView().getItem(0))
+                    || EasyJetpackAPI.getManager().isJetpack(evt.getView().getItem(1))) {
+                Player player = (Player) evt.getWhoClicked();
+                dispatch(new JetpackEvent(player,
+                        FlightTypes.ANVIL, evt.getView().getItem(0), evt), evt);
+            }
+        }
+    }
+}
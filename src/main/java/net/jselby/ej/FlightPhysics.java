@@ -0,0 +1,313 @@
+package net.jselby.ej;
+
+/**
+ * The flight model used by the built-in Jetpacks. This works only on
+ * primitive doubles, so it doesn't need a server to run, and doesn't allocate
+ * anything: each player has a State which is reused every tick, and each
+ * Jetpack describes how it flies with a Params.
+ * <p/>
+ * One step takes the player's current velocity, applies drag, adds the
+ * Jetpack's thrust along the direction they are looking and its lift, clamps
+ * each axis, and produces the velocity to send to the player.
+ */
+public final class FlightPhysics {
+    private FlightPhysics() {
+    }
+
+    /**
+     * Describes how a Jetpack flies. Params can't be changed once they have
+     * been built, so they can be shared between every player.
+     */
+    public static final class Params {
+        private final double drag;
+        private final double thrust;
+        private final double lift;
+        private final double liftMin;
+        private final double liftMultiplier;
+        private final double liftMax;
+        private final double maxHorizontal;
+        private final double maxUp;
+        private final double maxDown;
+        private final boolean unitSpeed;
+        private final boolean hoverHold;
+
+        private Params(Builder builder) {
+            drag = builder.drag;
+            thrust = builder.thrust;
+            lift = builder.lift;
+            liftMin = builder.liftMin;
+            liftMultiplier = builder.liftMultiplier;
+            liftMax = builder.liftMax;
+            maxHorizontal = builder.maxHorizontal;
+            maxUp = builder.maxUp;
+            maxDown = builder.maxDown;
+            unitSpeed = builder.unitSpeed;
+            hoverHold = builder.hoverHold;
+        }
+
+        /**
+         * Starts describing how a Jetpack flies
+         *
+         * @return A new Builder, which doesn't move the player at all
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Builds Params, one setting at a time
+         */
+        public static final class Builder {
+            private double drag = 1;
+            private double thrust;
+            private double lift;
+            private double liftMin;
+            private double liftMultiplier;
+            private double liftMax = Double.MAX_VALUE;
+            private double maxHorizontal = Double.MAX_VALUE;
+            private double maxUp = Double.MAX_VALUE;
+            private double maxDown = Double.MAX_VALUE;
+            private boolean unitSpeed;
+            private boolean hoverHold;
+
+            private Builder() {
+            }
+
+            /**
+             * Sets how much of the current velocity is kept, before thrust is
+             * added
+             *
+             * @param drag A multiplier, where 1 keeps all of it
+             * @return This Builder
+             */
+            public Builder drag(double drag) {
+                this.drag = drag;
+                return this;
+            }
+
+            /**
+             * Sets how hard the player is pushed along the direction they are
+             * looking, horizontally
+             *
+             * @param thrust The push, in blocks per tick
+             * @return This Builder
+             */
+            public Builder thrust(double thrust) {
+                this.thrust = thrust;
+                return this;
+            }
+
+            /**
+             * Sets a constant vertical push
+             *
+             * @param lift The push, in blocks per tick
+             * @return This Builder
+             */
+            public Builder lift(double lift) {
+                this.lift = lift;
+                this.liftMultiplier = 0;
+                return this;
+            }
+
+            /**
+             * Sets a vertical push that builds on the player's current vertical
+             * speed, which is raised to at least the minimum, multiplied, and
+             * then capped.
+             *
+             * @param min        The lowest vertical speed to build from
+             * @param multiplier How much the vertical speed is multiplied by
+             * @param max        The largest push
+             * @return This Builder
+             */
+            public Builder boostLift(double min, double multiplier, double max) {
+                this.liftMin = min;
+                this.liftMultiplier = multiplier;
+                this.liftMax = max;
+                return this;
+            }
+
+            /**
+             * Clamps the resulting velocity on each axis
+             *
+             * @param horizontal The largest speed on the X and Z axis, either way
+             * @param up         The largest upwards speed
+             * @param down       The largest downwards speed
+             * @return This Builder
+             */
+            public Builder clamp(double horizontal, double up, double down) {
+                this.maxHorizontal = horizontal;
+                this.maxUp = up;
+                this.maxDown = down;
+                return this;
+            }
+
+            /**
+             * Scales the resulting velocity to a speed of one block per tick,
+             * after it has been clamped. This is how Jetpacks have always flown.
+             *
+             * @return This Builder
+             */
+            public Builder unitSpeed() {
+                this.unitSpeed = true;
+                return this;
+            }
+
+            /**
+             * Stops all vertical movement once everything else has been
+             * applied, holding the player at their current height.
+             *
+             * @return This Builder
+             */
+            public Builder hoverHold() {
+                this.hoverHold = true;
+                return this;
+            }
+
+            /**
+             * Builds the Params. The Builder can carry on being used
+             * afterwards, without changing them.
+             *
+             * @return The Params
+             */
+            public Params build() {
+                return new Params(this);
+            }
+        }
+    }
+
+    /**
+     * The velocity of a single player, which is reused between ticks. This
+     * also remembers the last velocity that was sent to the player, so
+     * velocities which haven't changed don't need to be sent again.
+     */
+    public static final class State {
+        private double x;
+        private double y;
+        private double z;
+        private double sentX;
+        private double sentY;
+        private double sentZ;
+        // Nothing has been sent yet
+        private boolean sent;
+        private long sentTick;
+
+        /**
+         * Sets the player's current velocity, before a step
+         *
+         * @param x The X velocity
+         * @param y The Y velocity
+         * @param z The Z velocity
+         */
+        public void setVelocity(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        /**
+         * Checks if the velocity from the last step needs to be sent to the
+         * player. It doesn't if it is within epsilon of the last velocity
+         * sent on each axis, and the player is still moving at the velocity
+         * that was sent, so sending it again wouldn't change anything. A
+         * player whose velocity has drifted, such as from gravity while
+         * hovering, or from drag after a thrust, is sent it again. It is
+         * always sent once refreshTicks have passed since the last time.
+         *
+         * @param currentX     The player's X velocity before the step
+         * @param currentY     The player's Y velocity before the step
+         * @param currentZ     The player's Z velocity before the step
+         * @param tick         The current tick
+         * @param epsilon      The smallest change that is sent, or below 0
+         *                     to always send
+         * @param refreshTicks The most ticks between velocities being sent
+         * @return If the velocity should be sent
+         */
+        public boolean needsSending(double currentX, double currentY, double currentZ,
+                                    long tick, double epsilon, int refreshTicks) {
+            if (epsilon < 0 || !sent || tick - sentTick >= refreshTicks) {
+                return true;
+            }
+            return Math.abs(x - sentX) > epsilon
+                    || Math.abs(y - sentY) > epsilon
+                    || Math.abs(z - sentZ) > epsilon
+                    || Math.abs(currentX - sentX) > epsilon
+                    || Math.abs(currentY - sentY) > epsilon
+                    || Math.abs(currentZ - sentZ) > epsilon;
+        }
+
+        /**
+         * Records that the velocity from the last step was sent to the player
+         *
+         * @param tick The current tick
+         */
+        public void markSent(long tick) {
+            sentX = x;
+            sentY = y;
+            sentZ = z;
+            sentTick = tick;
+            sent = true;
+        }
+    }
+
+    /**
+     * Runs one tick of flight. The state's velocity is replaced with the
+     * velocity the player should now have.
+     *
+     * @param params How the Jetpack flies
+     * @param state  The player's velocity
+     * @param yaw    The player's yaw, in degrees
+     * @param pitch  The player's pitch, in degrees
+     */
+    public static void step(Params params, State state, float yaw, float pitch) {
+        // The same direction as Location.getDirection(), without the Vector
+        double yawRadians = Math.toRadians(yaw);
+        double horizontal = Math.cos(Math.toRadians(pitch));
+        double dirX = -horizontal * Math.sin(yawRadians);
+        double dirZ = horizontal * Math.cos(yawRadians);
+
+        double lift = params.lift;
+        if (params.liftMultiplier != 0) {
+            lift = Math.min(Math.max(state.y, params.liftMin) * params.liftMultiplier,
+                    params.liftMax);
+        }
+
+        double x = clamp(state.x * params.drag + dirX * params.thrust,
+                -params.maxHorizontal, params.maxHorizontal);
+        double y = clamp(state.y * params.drag + lift, -params.maxDown, params.maxUp);
+        double z = clamp(state.z * params.drag + dirZ * params.thrust,
+                -params.maxHorizontal, params.maxHorizontal);
+
+        if (params.unitSpeed) {
+            double length = Math.sqrt(x * x + y * y + z * z);
+            if (length > 0) {
+                x /= length;
+                y /= length;
+                z /= length;
+            }
+        }
+
+        if (params.hoverHold) {
+            y = 0;
+        }
+
+        state.x = x;
+        state.y = y;
+        state.z = z;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return value < min ? min : value > max ? max : value;
+    }
+}
@@ -0,0 +1,246 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import net.jselby.ej.api.JetpackEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Arrays;
+
+/**
+ * Keeps constant crouch and timered Jetpacks running. Every active flight is
+ * a session, and all sessions are updated by this single task once per tick,
+ * rather than each flight having its own scheduled task.
+ * <p/>
+ * Each player can have one session at a time, found by their PlayerIndex.
+ * Sessions are kept in a packed array, and finished sessions are reused, so
+ * starting and stopping a flight doesn't allocate anything.
+ */
+class FlightSessionEngine implements Runnable {
+    private final JetpackManager manager;
+    private final PlayerIndex players;
+    private FlightSession[] byPlayer = new FlightSession[16];
+    private FlightSession[] sessions = new FlightSession[16];
+    private int sessionCount;
+    private FlightSession[] pool = new FlightSession[16];
+    private int poolCount;
+    private long currentTick;
+    private long lastRun;
+    private double averageTickMillis = 50;
+
+    FlightSessionEngine(JetpackManager manager, PlayerIndex players) {
+        this.manager = manager;
+        this.players = players;
+    }
+
+    @Override
+    public void run() {
+        currentTick++;
+
+        // Time between runs is how long the server's ticks are taking
+        long now = System.nanoTime();
+        if (lastRun != 0) {
+            double millis = (now - lastRun) / 1000000D;
+            averageTickMillis += (millis - averageTickMillis) * 0.1;
+        }
+        lastRun = now;
+
+        manager.getExemptions().advance(currentTick);
+        manager.flushIntents();
+        manager.getNativeFlight().tick(currentTick);
+
+        // Walk backwards, so sessions moved by stop() have already been updated
+        for (int i = sessionCount - 1; i >= 0; i--) {
+            if (i >= sessionCount) {
+                continue;
+            }
+
+            FlightSession session = sessions[i];
+            if (!update(session)) {
+                stop(session);
+            }
+        }
+    }
+
+    /**
+     * Updates a single session for this tick
+     *
+     * @param session The session to update
+     * @return If the session should keep running
+     */
+    private boolean update(FlightSession session) {
+        Player player = session.player;
+        if (!player.isOnline()) {
+            return false;
+        }
+
+        boolean crouching = players.isCrouching(session.playerIndex);
+        if (!crouching && !session.jetpack.keepCalling()) {
+            return false;
+        }
+
+        session.state = crouching ? FlightTypes.CROUCH_CONSTANT : FlightTypes.TIMER;
+
+        // The Jetpack has already flown the player this tick
+        if (manager.wasIntentHandled(session.playerIndex, session.jetpack.getSlot())) {
+            return true;
+        }
+
+        // Between impulses, the player's client moves them on its own
+        Jetpack jetpack = session.jetpack;
+        int interval = jetpack.getImpulseInterval();
+        if (interval > 1 || jetpack.isGlideAssisted()) {
+            if (player.isOnGround()) {
+                // Push them every tick until they have taken off
+                session.nextImpulse = currentTick;
+            } else if (jetpack.isGlideAssisted() && !player.isGliding()) {
+                // Gliding ends straight away on the ground, so it is started on
+                // the first tick they are in the air, even between impulses
+                player.setGliding(true);
+            }
+            if (currentTick < session.nextImpulse) {
+                return true;
+            }
+            session.nextImpulse = currentTick + interval;
+        }
+        return manager.onJetpackEvent(new JetpackEvent(player, session.state, session.item, null));
+    }
+
+    /**
+     * Starts a session for a player, unless they already have one.
+     *
+     * @param player  The player who started flying
+     * @param jetpack The Jetpack that started the flight
+     * @param item    The item from the event that started the flight
+     * @return If a new session was started
+     */
+    boolean start(Player player, Jetpack jetpack, ItemStack item) {
+        int playerIndex = players.indexOf(player);
+        if (playerIndex >= byPlayer.length) {
+            byPlayer = Arrays.copyOf(byPlayer, Math.max(byPlayer.length * 2, playerIndex + 1));
+        }
+        if (byPlayer[playerIndex] != null) {
+            return false;
+        }
+
+        FlightSession session = poolCount > 0 ? pool[--poolCount] : new FlightSession();
+        pool[poolCount] = null;
+        session.player = player;
+        session.playerIndex = playerIndex;
+        session.jetpack = jetpack;
+        session.item = item;
+        session.startTick = currentTick;
+        session.nextImpulse = currentTick + 1;
+        session.state = FlightTypes.CROUCH;
+
+        if (sessionCount == sessions.length) {
+            FlightSession[] grown = new FlightSession[sessions.length * 2];
+            System.arraycopy(sessions, 0, grown, 0, sessionCount);
+            sessions = grown;
+        }
+        session.index = sessionCount;
+        sessions[sessionCount++] = session;
+        byPlayer[playerIndex] = session;
+        ActivityRecorder.recordSessionStart(player, jetpack);
+        return true;
+    }
+
+    /**
+     * Stops a player's session, if they have one.
+     *
+     * @param playerIndex The index of the player to stop
+     */
+    void stop(int playerIndex) {
+        if (playerIndex < byPlayer.length && byPlayer[playerIndex] != null) {
+            stop(byPlayer[playerIndex]);
+        }
+    }
+
+    private void stop(FlightSession session) {
+        byPlayer[session.playerIndex] = null;
+        ActivityRecorder.recordSessionStop(session.player, session.jetpack, currentTick - session.startTick);
+
+        // Move the last session into this one's place
+        FlightSession last = sessions[--sessionCount];
+        sessions[session.index] = last;
+        last.index = session.index;
+        sessions[sessionCount] = null;
+
+        session.player = null;
+        session.jetpack = null;
+        session.item = null;
+        session.state = null;
+        if (poolCount == pool.length) {
+            FlightSession[] grown = new FlightSession[pool.length * 2];
+            System.arraycopy(pool, 0, grown, 0, poolCount);
+            pool = grown;
+        }
+        pool[poolCount++] = session;
+    }
+
+    /**
+     * Checks if a player currently has a session
+     *
+     * @param player The player to check
+     * @return If they are flying
+     */
+    boolean isActive(Player player) {
+        int playerIndex = players.find(player);
+        return playerIndex != -1 && playerIndex < byPlayer.length
+                && byPlayer[playerIndex] != null;
+    }
+
+    /**
+     * Finds the Jetpack a player is flying with
+     *
+     * @param playerIndex The index of the player to check, or -1
+     * @return A Jetpack, or null if they don't have a session
+     */
+    Jetpack getJetpack(int playerIndex) {
+        return playerIndex != -1 && playerIndex < byPlayer.length && byPlayer[playerIndex] != null
+                ? byPlayer[playerIndex].jetpack : null;
+    }
+
+    /**
+     * Returns how many sessions are currently running
+     *
+     * @return The session count
+     */
+    int getActiveCount() {
+        return sessionCount;
+    }
+
+    /**
+     * Returns how long recent server ticks have taken, on average. This is
+     * 50 milliseconds when the server is keeping up.
+     *
+     * @return A smoothed tick length, in milliseconds
+     */
+    double getAverageTickMillis() {
+        return averageTickMillis;
+    }
+
+    /**
+     * Returns how many ticks this engine has been running for
+     *
+     * @return The current tick
+     */
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * A single player's flight
+     */
+    private static class FlightSession {
+        private Player player;
+        private int playerIndex;
+        private Jetpack jetpack;
+        private ItemStack item;
+        private long startTick;
+        private long nextImpulse;
+        private FlightTypes state;
+        private int index;
+    }
+}
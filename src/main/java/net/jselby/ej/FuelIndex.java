@@ -0,0 +1,150 @@
+package net.jselby.ej;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Remembers which inventory slots of each player hold fuel, and which of
+ * those are burning, as a bit per slot. Player inventories have 41 slots, so
+ * these fit in a long.
+ * <p/>
+ * A player's inventory is only scanned after their entry has been marked as
+ * dirty, by a event which moved fuel around. Changes made by useFuel() are
+ * applied to the entry directly. A entry with no fuel in it is kept as well,
+ * so players without fuel aren't scanned again until something changes.
+ */
+class FuelIndex {
+    private static final int MAX_SLOTS = 64;
+
+    private final PlayerIndex players;
+    private final BitSet clean = new BitSet();
+    private long[] fuelSlots = new long[16];
+    private long[] burningSlots = new long[16];
+
+    FuelIndex(PlayerIndex players) {
+        this.players = players;
+    }
+
+    /**
+     * Returns the slots holding fuel, as a bit per slot
+     *
+     * @param player     The player to check
+     * @param fuel       The fuel material
+     * @param durability The fuel durability, or -1 for any
+     * @return A bit mask of slots
+     */
+    long getFuelSlots(Player player, Material fuel, int durability) {
+        return fuelSlots[update(player, fuel, durability)];
+    }
+
+    /**
+     * Returns the slots holding burning fuel, as a bit per slot
+     *
+     * @param player     The player to check
+     * @param fuel       The fuel material
+     * @param durability The fuel durability, or -1 for any
+     * @return A bit mask of slots
+     */
+    long getBurningSlots(Player player, Material fuel, int durability) {
+        return burningSlots[update(player, fuel, durability)];
+    }
+
+    /**
+     * Records what a slot now holds, after it has been changed.
+     *
+     * @param player  The player whose inventory was changed
+     * @param slot    The slot that was changed
+     * @param fuel    If the slot now holds fuel
+     * @param burning If the slot now holds burning fuel
+     */
+    void setSlot(Player player, int slot, boolean fuel, boolean burning) {
+        int index = players.indexOf(player);
+        if (slot >= MAX_SLOTS || !clean.get(index)) {
+            return;
+        }
+
+        long bit = 1L << slot;
+        fuelSlots[index] = fuel ? fuelSlots[index] | bit : fuelSlots[index] & ~bit;
+        burningSlots[index] = burning ? burningSlots[index] | bit : burningSlots[index] & ~bit;
+    }
+
+    /**
+     * Marks a player's entry as dirty, so their inventory is scanned next time
+     *
+     * @param player The player whose inventory changed
+     */
+    void invalidate(Player player) {
+        int index = players.find(player);
+        if (index != -1) {
+            clean.clear(index);
+        }
+    }
+
+    /**
+     * Marks a player's entry as dirty, by their index
+     *
+     * @param index The index of the player
+     */
+    void invalidate(int index) {
+        clean.clear(index);
+    }
+
+    /**
+     * Marks every entry as dirty, for example when the fuel material changes
+     */
+    void invalidateAll() {
+        clean.clear();
+    }
+
+    private int update(Player player, Material fuel, int durability) {
+        int index = players.indexOf(player);
+        if (index >= fuelSlots.length) {
+            int size = Math.max(fuelSlots.length * 2, index + 1);
+            fuelSlots = Arrays.copyOf(fuelSlots, size);
+            burningSlots = Arrays.copyOf(burningSlots, size);
+        }
+
+        if (!clean.get(index)) {
+            long fuelMask = 0;
+            long burningMask = 0;
+
+            PlayerInventory inventory = player.getInventory();
+            int size = Math.min(inventory.getSize(), MAX_SLOTS);
+            for (int i = 0; i < size; i++) {
+                ItemStack item = inventory.getItem(i);
+                if (item != null && item.getType() == fuel
+                        && (durability == -1 || item.getDurability() == durability)) {
+                    fuelMask |= 1L << i;
+                    if (isBurning(item)) {
+                        burningMask |= 1L << i;
+                    }
+                }
+            }
+
+            fuelSlots[index] = fuelMask;
+            burningSlots[index] = burningMask;
+            clean.set(index);
+        }
+        return index;
+    }
+
+    /**
+     * Checks if a item of fuel is burning, from its "% left" lore
+     *
+     * @param item The fuel to check
+     * @return If the fuel is burning
+     */
+    static boolean isBurning(ItemStack item) {
+        if (!item.hasItemMeta()) {
+            return false;
+        }
+        ItemMeta meta = item.getItemMeta();
+        return meta.hasLore() && meta.getLore().get(0).contains("% left");
+    }
+}
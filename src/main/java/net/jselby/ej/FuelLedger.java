@@ -0,0 +1,135 @@
+package net.jselby.ej;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the fuel that each player currently has burning: which inventory
+ * slot it is in, and how much of it is left. While fuel is burning this is
+ * the authoritative amount, so the fuel's lore doesn't need to be found and
+ * parsed every time it is used. Fractions of a percent are kept here, and the
+ * item itself is only rewritten when a whole percent has burned.
+ * <p/>
+ * A player's entry is cleared whenever their inventory may have been
+ * rearranged. The next use then finds the burning fuel again, and picks up
+ * from the percentage on its lore, along with the fraction of a percent that
+ * was left if it still shows the percentage the ledger last wrote.
+ */
+class FuelLedger {
+    private final PlayerIndex players;
+    private int[] slot = new int[0];
+    private double[] remaining = new double[0];
+    private int[] rendered = new int[0];
+
+    FuelLedger(PlayerIndex players) {
+        this.players = players;
+    }
+
+    /**
+     * Finds the slot that the player's burning fuel is in
+     *
+     * @param player The player to check
+     * @return A inventory slot, or -1 if nothing is being tracked
+     */
+    int getBurningSlot(Player player) {
+        int index = players.find(player);
+        return index != -1 && index < slot.length ? slot[index] : -1;
+    }
+
+    /**
+     * Starts tracking fuel which is burning
+     *
+     * @param player    The player who owns the fuel
+     * @param fuelSlot  The slot the fuel is in
+     * @param percent   How much of the fuel is left
+     * @param displayed The percentage that the item currently shows, or -1 if
+     *                  it hasn't been written to the item yet
+     */
+    void start(Player player, int fuelSlot, double percent, int displayed) {
+        int index = players.indexOf(player);
+        ensureCapacity(index);
+        if (displayed == -1 || rendered[index] != displayed || (int) remaining[index] != displayed) {
+            remaining[index] = percent;
+        }
+        slot[index] = fuelSlot;
+        rendered[index] = displayed;
+    }
+
+    /**
+     * Burns some of the player's fuel
+     *
+     * @param player  The player who is using fuel
+     * @param percent How much of the fuel to burn
+     * @return How much of the fuel is left
+     */
+    double burn(Player player, double percent) {
+        int index = players.indexOf(player);
+        remaining[index] -= percent;
+        return remaining[index];
+    }
+
+    /**
+     * Checks if the percentage shown on the fuel needs to change. If it does,
+     * it is assumed that the caller writes it to the item.
+     *
+     * @param player The player who owns the fuel
+     * @return The percentage to show, or -1 if the item is already up to date
+     */
+    int takeRender(Player player) {
+        int index = players.indexOf(player);
+        int visible = (int) remaining[index];
+        if (visible == rendered[index]) {
+            return -1;
+        }
+        rendered[index] = visible;
+        return visible;
+    }
+
+    /**
+     * Stops tracking a player's fuel
+     *
+     * @param player The player to clear
+     */
+    void clear(Player player) {
+        int index = players.find(player);
+        if (index != -1) {
+            clear(index);
+        }
+    }
+
+    /**
+     * Stops tracking the fuel of a player, by their index. How much was left
+     * is kept, for when the same fuel is found again.
+     *
+     * @param index The index of the player to clear
+     */
+    void clear(int index) {
+        if (index < slot.length) {
+            slot[index] = -1;
+        }
+    }
+
+    /**
+     * Forgets everything about a player's fuel, once they have left
+     *
+     * @param index The index of the player who left
+     */
+    void remove(int index) {
+        if (index < slot.length) {
+            slot[index] = -1;
+            rendered[index] = -1;
+        }
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= slot.length) {
+            int size = Math.max(slot.length * 2, index + 1);
+            int oldSize = slot.length;
+            slot = Arrays.copyOf(slot, size);
+            Arrays.fill(slot, oldSize, size, -1);
+            remaining = Arrays.copyOf(remaining, size);
+            rendered = Arrays.copyOf(rendered, size);
+        }
+    }
+}
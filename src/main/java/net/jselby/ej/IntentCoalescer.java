@@ -0,0 +1,138 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import net.jselby.ej.api.JetpackEvent;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Collects the Jetpack events each player causes during a tick, so they can
+ * be handled once, when the flight session task runs. A player who crouches,
+ * double jumps and clicks in the same tick then has their fuel checked and
+ * used, and their velocity set, once for each Jetpack they are wearing,
+ * rather than once for each event.
+ * <p/>
+ * Only crouches and clicks are collected. Events such as fall damage and
+ * anvil use are always handled straight away. The server's event for a
+ * collected event is cancelled when it is collected, if the player is allowed
+ * to use the Jetpack, rather than once the Jetpack has checked its fuel. If a
+ * player causes more than one event for the same Jetpack in a tick, the last
+ * one is kept. A Jetpack which handled a collected event isn't also
+ * called by the player's flight session in that tick.
+ */
+class IntentCoalescer {
+    private static final Jetpack.Slot[] SLOTS = Jetpack.Slot.values();
+    private static final boolean[] COALESCED = new boolean[FlightTypes.values().length];
+
+    static {
+        COALESCED[FlightTypes.CROUCH.ordinal()] = true;
+        COALESCED[FlightTypes.INTERACT.ordinal()] = true;
+    }
+
+    // Indexed by player index * SLOTS.length + slot ordinal
+    private RegisteredJetpack[] jetpacks = new RegisteredJetpack[0];
+    private JetpackEvent[] events = new JetpackEvent[0];
+    private long[] handled = new long[0];
+
+    // Players with events waiting, in the order they first caused one
+    private int[] queue = new int[16];
+    private int queueCount;
+    private final BitSet queued = new BitSet();
+
+    /**
+     * Checks if events of a type can be collected
+     *
+     * @param type The type of event
+     * @return If the event doesn't have to be handled straight away
+     */
+    static boolean isCoalesced(FlightTypes type) {
+        return COALESCED[type.ordinal()];
+    }
+
+    /**
+     * Collects a event, to be handled when flush() is next called
+     *
+     * @param index   The index of the player who caused the event
+     * @param slot    The slot the Jetpack that will handle it is in
+     * @param jetpack The Jetpack that will handle it
+     * @param event   The event
+     */
+    void offer(int index, Jetpack.Slot slot, RegisteredJetpack jetpack, JetpackEvent event) {
+        int key = index * SLOTS.length + slot.ordinal();
+        if (key >= jetpacks.length) {
+            int size = Math.max(jetpacks.length * 2, (index + 1) * SLOTS.length);
+            jetpacks = Arrays.copyOf(jetpacks, size);
+            events = Arrays.copyOf(events, size);
+            handled = Arrays.copyOf(handled, size);
+        }
+        jetpacks[key] = jetpack;
+        events[key] = event;
+
+        if (!queued.get(index)) {
+            queued.set(index);
+            if (queueCount == queue.length) {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+            queue[queueCount++] = index;
+        }
+    }
+
+    /**
+     * Handles every collected event, once for each player and Jetpack
+     *
+     * @param manager The JetpackManager to pass the events to
+     * @param tick    The current tick
+     */
+    void flush(JetpackManager manager, long tick) {
+        for (int i = 0; i < queueCount; i++) {
+            int index = queue[i];
+            queued.clear(index);
+            for (int slot = 0; slot < SLOTS.length; slot++) {
+                int key = index * SLOTS.length + slot;
+                RegisteredJetpack jetpack = jetpacks[key];
+                if (jetpack == null) {
+                    continue;
+                }
+
+                JetpackEvent event = events[key];
+                jetpacks[key] = null;
+                events[key] = null;
+                handled[key] = tick;
+                manager.dispatchIntent(jetpack, SLOTS[slot], event);
+            }
+        }
+        queueCount = 0;
+    }
+
+    /**
+     * Checks if a collected event was handled by a Jetpack in a slot this
+     * tick
+     *
+     * @param index The index of the player to check
+     * @param slot  The slot to check
+     * @param tick  The current tick
+     * @return If a collected event was handled
+     */
+    boolean wasHandled(int index, Jetpack.Slot slot, long tick) {
+        int key = index * SLOTS.length + slot.ordinal();
+        return key < handled.length && handled[key] == tick;
+    }
+
+    /**
+     * Drops any events a player has waiting, once they have left
+     *
+     * @param index The index of the player who left
+     */
+    void clear(int index) {
+        for (int slot = 0; slot < SLOTS.length; slot++) {
+            int key = index * SLOTS.length + slot;
+            if (key < jetpacks.length) {
+                jetpacks[key] = null;
+                events[key] = null;
+                handled[key] = 0;
+            }
+        }
+    }
+}
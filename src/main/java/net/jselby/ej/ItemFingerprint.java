@@ -0,0 +1,113 @@
+package net.jselby.ej;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.List;
+
+/**
+ * A precomputed identity for a Jetpack's item. Items can be compared against
+ * it without building the Jetpack's item, and only reading the item's
+ * metadata once.
+ * <p/>
+ * This matches the same items as Utils.isItemStackEqual(template, item): the
+ * material must be the same, the display name must be equal ignoring case, and
+ * the item's lore must start with the template's lore, ignoring case.
+ */
+public final class ItemFingerprint {
+    private final Material material;
+    private final String displayName;
+    private final String[] lore;
+    private final int loreHash;
+
+    /**
+     * Creates a fingerprint from a template item.
+     *
+     * @param template The item to fingerprint, which should have a name and lore
+     */
+    public ItemFingerprint(ItemStack template) {
+        ItemMeta meta = template.hasItemMeta() ? template.getItemMeta() : null;
+        this.material = template.getType();
+        this.displayName = meta != null && meta.hasDisplayName() ? meta.getDisplayName() : null;
+
+        List<String> templateLore = meta != null && meta.hasLore() ? meta.getLore() : null;
+        this.lore = templateLore == null ? null
+                : templateLore.toArray(new String[templateLore.size()]);
+        this.loreHash = lore == null ? 0 : hashLore(templateLore, lore.length);
+    }
+
+    /**
+     * Returns the material that a matching item has.
+     *
+     * @return A Bukkit material
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Checks if the item matches this fingerprint.
+     *
+     * @param item The item to check
+     * @return If the item matches
+     */
+    public boolean matches(ItemStack item) {
+        return item != null
+                && item.getType() == material
+                && item.hasItemMeta()
+                && matches(item.getType(), item.getItemMeta());
+    }
+
+    /**
+     * Checks if a item matches this fingerprint, using metadata which has already
+     * been read from it. This allows one item to be checked against several
+     * fingerprints, while calling getItemMeta() once.
+     *
+     * @param type The material of the item
+     * @param meta The metadata of the item
+     * @return If the item matches
+     */
+    public boolean matches(Material type, ItemMeta meta) {
+        if (type != material || meta == null || displayName == null || lore == null
+                || !meta.hasDisplayName() || !meta.hasLore()
+                || !displayName.equalsIgnoreCase(meta.getDisplayName())) {
+            return false;
+        }
+
+        List<String> itemLore = meta.getLore();
+        if (itemLore.size() < lore.length || hashLore(itemLore, lore.length) != loreHash) {
+            return false;
+        }
+
+        for (int i = 0; i < lore.length; i++) {
+            String line = itemLore.get(i);
+            if (line == null || !lore[i].equalsIgnoreCase(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the first lines of some lore, ignoring case in the same way as
+     * String.equalsIgnoreCase().
+     *
+     * @param lore  The lore to hash
+     * @param lines How many lines should be hashed
+     * @return The hash
+     */
+    private static int hashLore(List<String> lore, int lines) {
+        int hash = lines;
+        for (int i = 0; i < lines; i++) {
+            String line = lore.get(i);
+            if (line == null) {
+                continue;
+            }
+            for (int c = 0; c < line.length(); c++) {
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(line.charAt(c)));
+            }
+        }
+        return hash;
+    }
+}
@@ -1,140 +1,164 @@
 package net.jselby.ej;
 
 import net.jselby.ej.api.EasyJetpackAPI;
-import net.jselby.ej.api.FlightTypes;
-import net.jselby.ej.api.JetpackEvent;
-import org.bukkit.GameMode;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.*;
+import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.inventory.ItemStack;
 
+/**
+ * Keeps track of the player state that EasyJetpack caches: who is online,
+ * and what they are wearing and carrying. These listeners are always
+ * registered, as is the check for the permission to take no fall damage.
+ * <p/>
+ * The listeners which create JetpackEvents are in FlightListeners.
+ */
 public class JetpackListener implements Listener {
-    @EventHandler
-    public void onPlayerToggleCrouchEvent(PlayerToggleSneakEvent evt) {
-        EasyJetpackAPI.getManager().setCrouching(evt.getPlayer(), evt.isSneaking());
-        if (evt.isSneaking()) {
-            JetpackEvent event = new JetpackEvent(evt.getPlayer(),
-                    FlightTypes.CROUCH, null, evt);
-            if (EasyJetpackAPI.getManager().onJetpackEvent(event) || event.isCancelled()) {
-                evt.setCancelled(true);
-            }
+    // The items which are put on by right clicking with them, by Material ordinal
+    private static final boolean[] EQUIPPABLE = new boolean[Material.values().length];
+
+    static {
+        for (Material material : Material.values()) {
+            String name = material.name();
+            EQUIPPABLE[material.ordinal()] = name.endsWith("_HELMET")
+                    || name.endsWith("_CHESTPLATE") || name.endsWith("_LEGGINGS")
+                    || name.endsWith("_BOOTS") || material == Material.ELYTRA;
         }
     }
 
     @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        EasyJetpackAPI.getManager().trackPlayer(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
-        EasyJetpackAPI.getManager().setCrouching(event.getPlayer(), false);
+        EasyJetpackAPI.getManager().forgetPlayer(event.getPlayer());
     }
 
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent event) {
         EasyJetpackAPI.getManager().setCrouching(event.getEntity(), false);
+        EasyJetpackAPI.getManager().invalidateEquipment(event.getEntity());
+        EasyJetpackAPI.getManager().invalidateFuel(event.getEntity());
     }
 
-    @EventHandler
-    public void onPlayerKick(PlayerKickEvent event) {
-        EasyJetpackAPI.getManager().setCrouching(event.getPlayer(), false);
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        EasyJetpackAPI.getManager().invalidateEquipment(event.getPlayer());
+        EasyJetpackAPI.getManager().invalidateFuel(event.getPlayer());
     }
 
-    @EventHandler
-    public void onFlightToggleEvent(PlayerToggleFlightEvent evt) {
-        if (evt.getPlayer().getGameMode() != GameMode.CREATIVE
-                && EasyJetpack.getInstance().haveAllowedFlying(evt.getPlayer())) {
-            if (!evt.isFlying()) {
-                JetpackEvent event = new JetpackEvent(evt.getPlayer(),
-                        FlightTypes.CROUCH, null, evt);
-                EasyJetpackAPI.getManager().onJetpackEvent(event);
-                if (event.isCancelled()) {
-                    evt.setCancelled(true);
-                }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClick(InventoryClickEvent evt) {
+        if (evt.getWhoClicked() instanceof Player) {
+            EasyJetpackAPI.getManager().invalidateEquipment((Player) evt.getWhoClicked());
+
+            // Fuel can only move if it was clicked, or swapped with the hotbar
+            if (Utils.isFuel(evt.getCurrentItem()) || Utils.isFuel(evt.getCursor())
+                    || evt.getHotbarButton() != -1) {
+                EasyJetpackAPI.getManager().invalidateFuel((Player) evt.getWhoClicked());
             }
         }
     }
 
-    @EventHandler
-    public void onPlayerDamage(EntityDamageEvent evt) {
-        if (evt.getEntity() instanceof Player) {
-            if (evt.getCause() == DamageCause.FALL) {
-                ItemStack chestplate = ((Player) evt.getEntity()).getInventory().getChestplate();
-                if (((Player) evt.getEntity()).hasPermission("easyjetpack.nofall")
-                        && EasyJetpackAPI.getManager().isJetpack(chestplate)) {
-                    evt.setCancelled(true);
-                    return;
-                }
-                JetpackEvent event = new JetpackEvent(
-                        ((Player) evt.getEntity()), FlightTypes.FALLING, null, evt);
-                EasyJetpackAPI.getManager().onJetpackEvent(event);
-                if (event.isCancelled()) {
-                    evt.setCancelled(true);
-                }
-            }
-            if (evt.getCause() == DamageCause.DROWNING) {
-                JetpackEvent event = new JetpackEvent(
-                        ((Player) evt.getEntity()), FlightTypes.DROWNING, null, evt);
-                EasyJetpackAPI.getManager().onJetpackEvent(event);
-                if (event.isCancelled()) {
-                    evt.setCancelled(true);
-                }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryDrag(InventoryDragEvent evt) {
+        if (evt.getWhoClicked() instanceof Player) {
+            EasyJetpackAPI.getManager().invalidateEquipment((Player) evt.getWhoClicked());
+            if (Utils.isFuel(evt.getOldCursor())) {
+                EasyJetpackAPI.getManager().invalidateFuel((Player) evt.getWhoClicked());
             }
         }
     }
 
-    @EventHandler
-    public void onPlayerRenameItem(InventoryClickEvent evt) {
-        if (evt.getView().getType() == InventoryType.ANVIL) {
-            if (evt.getRawSlot() == 2) {
-                if (EasyJetpackAPI.getManager().isJetpack(
-                        evt.getView().getItem(0))
-                        || EasyJetpackAPI.getManager().isJetpack(
-                        evt.getView().getItem(1))) {
-                    JetpackEvent event = new JetpackEvent(
-                            (Player) evt.getWhoClicked(), FlightTypes.ANVIL,
-                            evt.getView().getItem(0), evt);
-                    EasyJetpackAPI.getManager().onJetpackEvent(event);
-                    if (event.isCancelled()) {
-                        evt.setCancelled(true);
-                    }
-                }
-            }
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemHeld(PlayerItemHeldEvent evt) {
+        EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSwapHandItems(PlayerSwapHandItemsEvent evt) {
+        EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemPickup(PlayerPickupItemEvent evt) {
+        // Picked up items can land in a empty hand
+        EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
+        if (Utils.isFuel(evt.getItem().getItemStack())) {
+            EasyJetpackAPI.getManager().invalidateFuel(evt.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemDrop(PlayerDropItemEvent evt) {
+        EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
+        if (Utils.isFuel(evt.getItemDrop().getItemStack())) {
+            EasyJetpackAPI.getManager().invalidateFuel(evt.getPlayer());
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent evt) {
+        EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDispenseArmor(BlockDispenseArmorEvent evt) {
+        if (evt.getTargetEntity() instanceof Player) {
+            EasyJetpackAPI.getManager().invalidateEquipment((Player) evt.getTargetEntity());
+        }
+    }
+
+    // Commands such as /give and /clear change inventories without any events,
+    // and having no fuel is cached until something changes
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent evt) {
+        EasyJetpackAPI.getManager().invalidateAllFuel();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerCommand(ServerCommandEvent evt) {
+        EasyJetpackAPI.getManager().invalidateAllFuel();
+    }
+
     @EventHandler
-    public void onPlayerInteract(PlayerInteractEvent evt) {
-        JetpackEvent event = new JetpackEvent(evt.getPlayer(),
-                FlightTypes.INTERACT, null, evt);
-        EasyJetpackAPI.getManager().onJetpackEvent(event);
-        if (event.isCancelled()) {
+    public void onPlayerKick(PlayerKickEvent event) {
+        EasyJetpackAPI.getManager().setCrouching(event.getPlayer(), false);
+    }
+
+    @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+    public void onPlayerDamage(EntityDamageEvent evt) {
+        if (evt.getCause() != DamageCause.FALL || !(evt.getEntity() instanceof Player)) {
+            return;
+        }
+        ItemStack chestplate = ((Player) evt.getEntity()).getInventory().getChestplate();
+        if (((Player) evt.getEntity()).hasPermission("easyjetpack.nofall")
+                && EasyJetpackAPI.getManager().isJetpack(chestplate)) {
             evt.setCancelled(true);
         }
     }
 
-    @EventHandler
-    public void onPlayerAttacked(EntityDamageByEntityEvent evt) {
-        if (evt.getEntity() instanceof Player) {
-            if (evt.getDamager() instanceof Player) {
-                JetpackEvent event = new JetpackEvent((Player) evt.getEntity(),
-                        FlightTypes.DAMAGED_BY_PLAYER, null, evt);
-                EasyJetpackAPI.getManager().onJetpackEvent(event);
-                if (event.isCancelled()) {
-                    evt.setCancelled(true);
-                }
-            } else {
-                JetpackEvent event = new JetpackEvent((Player) evt.getEntity(),
-                        FlightTypes.DAMAGED_BY_MOB, null, evt);
-                EasyJetpackAPI.getManager().onJetpackEvent(event);
-                if (event.isCancelled()) {
-                    evt.setCancelled(true);
-                }
-            }
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerInteract(PlayerInteractEvent evt) {
+        // Right clicking with armor equips it. This runs before the event is
+        // passed to the Jetpacks.
+        Action action = evt.getAction();
+        if ((action == Action.RIGHT_CLICK_AIR || action == Action.RIGHT_CLICK_BLOCK)
+                && evt.hasItem() && EQUIPPABLE[evt.getItem().getType().ordinal()]) {
+            EasyJetpackAPI.getManager().invalidateEquipment(evt.getPlayer());
         }
     }
 }
@@ -4,13 +4,13 @@ import net.jselby.ej.api.FlightTypes;
 import net.jselby.ej.api.Jetpack;
 import net.jselby.ej.api.JetpackEvent;
 import net.jselby.ej.impl.CraftingRecipe;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * This class manages Jetpacks, and calls the Jetpack events when they are
@@ -19,12 +19,24 @@ import java.util.HashMap;
  * @author James
  */
 public class JetpackManager {
+    private static final FlightTypes[] TYPES = FlightTypes.values();
+    private static final Jetpack.Slot[] SLOTS = Jetpack.Slot.values();
 
     private EasyJetpack plugin;
-    private ArrayList<Jetpack> jetpacks;
-    private ArrayList<Jetpack> jetpacksTimered;
-    private HashMap<Runnable, Integer> runnables;
-    private ArrayList<String> crouchingArray;
+    private ArrayList<RegisteredJetpack> jetpacks;
+    private RegisteredJetpack[][][] dispatchTable;
+    private Jetpack.Slot[][] dispatchSlots;
+    private EquipmentCache equipment;
+    private FuelLedger fuelLedger;
+    private FuelIndex fuelIndex;
+    private FlightPhysics.State[] flightStates = new FlightPhysics.State[16];
+    private PlayerIndex players;
+    private FlightSessionEngine sessions;
+    private ExemptionLeases exemptions;
+    private FlightListeners listeners;
+    private IntentCoalescer intents = new IntentCoalescer();
+    private NativeFlight nativeFlight;
+    private PerformanceMonitor monitor = new PerformanceMonitor();
 
     /**
      * A internally used constructor to create a JetpackManager instance.
@@ -34,10 +46,25 @@ public class JetpackManager {
     JetpackManager(EasyJetpack plugin) {
         this.plugin = plugin;
 
-        jetpacks = new ArrayList<Jetpack>();
-        runnables = new HashMap<Runnable, Integer>();
-        crouchingArray = new ArrayList<String>();
-        jetpacksTimered = new ArrayList<Jetpack>();
+        jetpacks = new ArrayList<RegisteredJetpack>();
+        players = new PlayerIndex();
+        sessions = new FlightSessionEngine(this, players);
+        nativeFlight = new NativeFlight(this, players);
+        equipment = new EquipmentCache(this, players);
+        fuelLedger = new FuelLedger(players);
+        fuelIndex = new FuelIndex(players);
+        exemptions = new ExemptionLeases(players);
+        CheatPluginAdapter.setManager(this);
+        listeners = new FlightListeners(plugin);
+        rebuildDispatchTable();
+
+        // Players may already be online if the plugin was reloaded
+        for (Player player : this.plugin.getServer().getOnlinePlayers()) {
+            players.indexOf(player);
+        }
+
+        this.plugin.getServer().getScheduler().scheduleSyncRepeatingTask(
+                plugin, sessions, 1, 1);
 
         this.plugin.getServer().getPluginManager()
                 .registerEvents(new JetpackListener(), this.plugin);
@@ -49,7 +76,8 @@ public class JetpackManager {
      * @param jetpack The Jetpack to add
      */
     public void addJetpack(Jetpack jetpack) {
-        jetpacks.add(jetpack);
+        jetpacks.add(new RegisteredJetpack(jetpack, monitor));
+        rebuildDispatchTable();
         CraftingRecipe recipe = jetpack.getCraftingRecipe();
         if (recipe != null) {
             recipe.register();
@@ -62,7 +90,103 @@ public class JetpackManager {
      * @param jetpack The Jetpack to remove
      */
     public void removeJetpack(Jetpack jetpack) {
-        jetpacks.remove(jetpack);
+        for (int i = 0; i < jetpacks.size(); i++) {
+            if (jetpacks.get(i).getJetpack().equals(jetpack)) {
+                jetpacks.remove(i);
+                break;
+            }
+        }
+        rebuildDispatchTable();
+    }
+
+    /**
+     * Rebuilds everything that is cached about the registered Jetpacks, after
+     * the configuration has been reloaded. Items are rebuilt, as their
+     * materials may have changed.
+     */
+    void refresh() {
+        for (int i = 0; i < jetpacks.size(); i++) {
+            jetpacks.set(i, new RegisteredJetpack(jetpacks.get(i).getJetpack(), monitor));
+        }
+        rebuildDispatchTable();
+        fuelIndex.invalidateAll();
+    }
+
+    /**
+     * Rebuilds the dispatch index, which maps a FlightTypes and a Slot onto the
+     * Jetpacks that could respond to it. A Jetpack's movement type, slot and
+     * keepCalling() are therefore expected to stay the same while it is
+     * registered.
+     */
+    private void rebuildDispatchTable() {
+        RegisteredJetpack[][][] table = new RegisteredJetpack[TYPES.length][SLOTS.length][];
+        Jetpack.Slot[][] slots = new Jetpack.Slot[TYPES.length][];
+        RegisteredJetpack[][] bySlot = new RegisteredJetpack[SLOTS.length][];
+
+        for (Jetpack.Slot slot : SLOTS) {
+            ArrayList<RegisteredJetpack> inSlot = new ArrayList<RegisteredJetpack>();
+            for (RegisteredJetpack next : jetpacks) {
+                if (next.getJetpack().getSlot() == slot) {
+                    inSlot.add(next);
+                }
+            }
+            bySlot[slot.ordinal()] = inSlot.toArray(new RegisteredJetpack[inSlot.size()]);
+        }
+
+        for (FlightTypes type : TYPES) {
+            // Slots are visited in the order their first Jetpack was registered
+            ArrayList<Jetpack.Slot> slotOrder = new ArrayList<Jetpack.Slot>();
+            for (RegisteredJetpack next : jetpacks) {
+                Jetpack.Slot slot = next.getJetpack().getSlot();
+                if (respondsTo(next.getJetpack(), type) && !slotOrder.contains(slot)) {
+                    slotOrder.add(slot);
+                }
+            }
+            slots[type.ordinal()] = slotOrder.toArray(new Jetpack.Slot[slotOrder.size()]);
+
+            for (Jetpack.Slot slot : SLOTS) {
+                ArrayList<RegisteredJetpack> candidates = new ArrayList<RegisteredJetpack>();
+                for (RegisteredJetpack next : jetpacks) {
+                    if (next.getJetpack().getSlot() == slot && respondsTo(next.getJetpack(), type)) {
+                        candidates.add(next);
+                    }
+                }
+                table[type.ordinal()][slot.ordinal()] =
+                        candidates.toArray(new RegisteredJetpack[candidates.size()]);
+            }
+        }
+
+        dispatchTable = table;
+        dispatchSlots = slots;
+        equipment.setCandidates(bySlot);
+
+        // Only listen for the events that a Jetpack could respond to. Anvil
+        // events are also needed to stop Jetpacks being repaired.
+        for (FlightTypes type : TYPES) {
+            boolean interested = slots[type.ordinal()].length != 0;
+            if (type == FlightTypes.ANVIL) {
+                for (RegisteredJetpack next : jetpacks) {
+                    interested |= next.getJetpack().isRepairingDisabled();
+                }
+            }
+            listeners.setInterested(type, interested);
+        }
+    }
+
+    /**
+     * Checks if a Jetpack should be handed events of the specified type. Constant
+     * crouch and creative toggle Jetpacks are started by a crouch, and timered
+     * Jetpacks receive the timer events.
+     *
+     * @param jetpack The Jetpack to check
+     * @param type    The type of event
+     * @return If the Jetpack could respond to the event
+     */
+    private static boolean respondsTo(Jetpack jetpack, FlightTypes type) {
+        return jetpack.getMovementType() == type
+                || (jetpack.getMovementType() == FlightTypes.CROUCH_CONSTANT && type == FlightTypes.CROUCH)
+                || (jetpack.getMovementType() == FlightTypes.CREATIVE_TOGGLE && type == FlightTypes.CROUCH)
+                || (jetpack.keepCalling() && type == FlightTypes.TIMER);
     }
 
     /**
@@ -73,95 +197,277 @@ public class JetpackManager {
      * @return Whether the event succeeded
      */
     public boolean onJetpackEvent(final JetpackEvent event) {
-        for (final Jetpack next : jetpacks) {
-            // If this is a anvil event, disable it.
-            if (event.getType() == FlightTypes.ANVIL
-                    && Utils.isItemStackEqual(next.getItem(), event.getItem())
-                    && next.isRepairingDisabled()) {
-                event.setCancelled(true);
-                return false;
-            }
-
-            // Check the movement types to see if they match up.
-            if ((next.getMovementType() == event.getType() ||
-                    (next.getMovementType() == FlightTypes.CROUCH_CONSTANT && event.getType() == FlightTypes.CROUCH) ||
-                    (next.keepCalling() && event.getType() == FlightTypes.TIMER))
-                    && Utils.isItemStackEqual(next.getItem(),
-                    Utils.getSlot(event.getPlayer(), next.getSlot()))) {
-
-                // If the player doesn't have permission to use the jetpack, don't let them.
-                if (!event.getPlayer().hasPermission(next.getPermission())) {
-                    event.getPlayer()
-                            .sendMessage(
-                                    ChatColor.RED
-                                            + "You do not have permission to use this jetpack.");
+        long start = System.nanoTime();
+
+        // If this is a anvil event, disable it.
+        if (event.getType() == FlightTypes.ANVIL) {
+            for (RegisteredJetpack next : jetpacks) {
+                if (next.getFingerprint().matches(event.getItem())
+                        && next.getJetpack().isRepairingDisabled()) {
+                    event.setCancelled(true);
+                    next.getTimings()[PerformanceMonitor.DISPATCH].record(System.nanoTime() - start);
+                    ActivityRecorder.recordDispatch(event.getPlayer(), event.getType(),
+                            next.getJetpack(), false);
                     return false;
                 }
+            }
+        }
 
-                // If this was triggered via a constant crouch event, call the normal event.
-                if (next.getMovementType() == FlightTypes.CROUCH_CONSTANT
-                        && event.getType() == FlightTypes.CROUCH && !jetpacksTimered.contains(next)) {
-                    if (next.keepCalling()) {
-                        jetpacksTimered.add(next);
-                    }
+        // Only look at the slots, and Jetpacks, that could match this event.
+        int type = event.getType().ordinal();
+        for (Jetpack.Slot slot : dispatchSlots[type]) {
+            RegisteredJetpack worn = equipment.getEquipped(event.getPlayer(), slot);
+            if (worn == null) {
+                continue;
+            }
+
+            for (RegisteredJetpack next : dispatchTable[type][slot.ordinal()]) {
+                if (next == worn) {
+                    next.getTimings()[PerformanceMonitor.DISPATCH].record(System.nanoTime() - start);
 
-                    Runnable runnable = new Runnable() {
-                        @Override
-                        public void run() {
-                            if (isCrouching(event.getPlayer()) || next.keepCalling()) {
-                                boolean success = onJetpackEvent(new JetpackEvent(
-                                        event.getPlayer(),
-                                        isCrouching(event.getPlayer()) ?
-                                                FlightTypes.CROUCH_CONSTANT : FlightTypes.TIMER,
-                                        event.getItem(), null));
-                                if (!success) {
-                                    Bukkit.getScheduler().cancelTask(
-                                            runnables.get(this));
-                                    if (jetpacksTimered.contains(next)) {
-                                        jetpacksTimered.remove(next);
-                                    }
-                                }
-                            } else {
-                                Bukkit.getScheduler().cancelTask(
-                                        runnables.get(this));
-
-                                if (jetpacksTimered.contains(next)) {
-                                    jetpacksTimered.remove(next);
-                                }
-                            }
-                        }
-                    };
-
-                    int id = Bukkit.getScheduler().scheduleSyncRepeatingTask(
-                            plugin, runnable, 1, 1);
-                    runnables.put(runnable, id);
-                    return true;
-                } else {
-                    boolean hasFuel = next.onFuelCheckEvent(event);
-                    if (hasFuel) {
-                        next.onFuelUsageEvent(event);
-                        next.onFlyEvent(event);
+                    // Handle this with the player's other events at the end of the
+                    // tick. The server's event has to be cancelled now, so it is
+                    // whenever the player is allowed to use the Jetpack they wear.
+                    if (IntentCoalescer.isCoalesced(event.getType())
+                            && plugin.getSettings().isCoalesceEnabled()) {
+                        intents.offer(players.indexOf(event.getPlayer()), slot, next, event);
+                        return event.getPlayer().hasPermission(next.getJetpack().getPermission());
                     }
-                    return hasFuel;
+
+                    boolean result = callJetpack(next, event);
+                    ActivityRecorder.recordDispatch(event.getPlayer(), event.getType(),
+                            next.getJetpack(), result);
+                    return result;
                 }
             }
         }
 
+        monitor.getUnmatched()[PerformanceMonitor.DISPATCH].record(System.nanoTime() - start);
+        ActivityRecorder.recordDispatch(event.getPlayer(), event.getType(), null, false);
         return false;
     }
 
-    public boolean isCrouching(Player player) {
-        return crouchingArray.contains(player.getName());
+    /**
+     * Handles a event which was collected earlier in the tick, if the player
+     * is still wearing the Jetpack it was collected for
+     *
+     * @param registered The Jetpack the event was collected for
+     * @param slot       The slot the Jetpack was in
+     * @param event      The event
+     */
+    void dispatchIntent(RegisteredJetpack registered, Jetpack.Slot slot, JetpackEvent event) {
+        boolean result = event.getPlayer().isOnline()
+                && equipment.getEquipped(event.getPlayer(), slot) == registered
+                && callJetpack(registered, event);
+        ActivityRecorder.recordDispatch(event.getPlayer(), event.getType(),
+                registered.getJetpack(), result);
     }
 
-    public void setCrouching(Player player, boolean crouching) {
-        if (crouching) {
-            crouchingArray.add(player.getName());
+    /**
+     * Charges a player for flying with a creative toggle Jetpack
+     *
+     * @param registered The Jetpack the player is flying with
+     * @param event      A CREATIVE_TOGGLE event
+     * @return If the player can keep flying
+     */
+    boolean dispatchNative(RegisteredJetpack registered, JetpackEvent event) {
+        boolean result = callJetpack(registered, event);
+        ActivityRecorder.recordDispatch(event.getPlayer(), event.getType(),
+                registered.getJetpack(), result);
+        return result;
+    }
+
+    /**
+     * Handles every event collected this tick
+     */
+    void flushIntents() {
+        intents.flush(this, getCurrentTick());
+    }
+
+    /**
+     * Checks if a Jetpack has already handled a collected event for a player
+     * this tick
+     *
+     * @param index The index of the player to check
+     * @param slot  The slot the Jetpack is in
+     * @return If the Jetpack has already been called this tick
+     */
+    boolean wasIntentHandled(int index, Jetpack.Slot slot) {
+        return intents.wasHandled(index, slot, getCurrentTick());
+    }
+
+    /**
+     * Checks if a player's activation is within the rate limit of the Jetpack
+     * that would handle it, before a event is created for it. This takes a
+     * activation from the player's limit, if there is one.
+     *
+     * @param player The player activating a Jetpack
+     * @param type   The type of event that would be created
+     * @return False if the activation should be dropped
+     */
+    boolean tryActivate(Player player, FlightTypes type) {
+        for (Jetpack.Slot slot : dispatchSlots[type.ordinal()]) {
+            RegisteredJetpack worn = equipment.getEquipped(player, slot);
+            if (worn == null) {
+                continue;
+            }
+
+            for (RegisteredJetpack next : dispatchTable[type.ordinal()][slot.ordinal()]) {
+                if (next == worn) {
+                    ActivationLimiter limiter = next.getLimiter();
+                    return limiter == null
+                            || limiter.tryAcquire(players.indexOf(player), getCurrentTick());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes a event onto a Jetpack which the player has been found to be
+     * wearing.
+     *
+     * @param registered The Jetpack the player is wearing
+     * @param event      The event to pass on
+     * @return Whether the event succeeded
+     */
+    private boolean callJetpack(final RegisteredJetpack registered, final JetpackEvent event) {
+        Jetpack next = registered.getJetpack();
+
+        // If the player doesn't have permission to use the jetpack, don't let them.
+        if (!event.getPlayer().hasPermission(next.getPermission())) {
+            event.getPlayer()
+                    .sendMessage(
+                            ChatColor.RED
+                                    + "You do not have permission to use this jetpack.");
+            return false;
+        }
+
+        // Players who are already flying with a creative toggle Jetpack are
+        // charged as they fly, rather than when they crouch
+        boolean startsNative = next.getMovementType() == FlightTypes.CREATIVE_TOGGLE
+                && event.getType() == FlightTypes.CROUCH;
+        if (startsNative && nativeFlight.isActive(players.indexOf(event.getPlayer()))) {
+            return false;
+        }
+
+        // If this was triggered via a constant crouch event, start a flight
+        // session, which calls the normal event every tick.
+        if (next.getMovementType() == FlightTypes.CROUCH_CONSTANT
+                && event.getType() == FlightTypes.CROUCH
+                && sessions.start(event.getPlayer(), next, event.getItem())) {
+            activated(event.getPlayer());
+            return true;
         } else {
-            crouchingArray.remove(player.getName());
+            PerformanceMonitor.Timings[] timings = registered.getTimings();
+            long start = System.nanoTime();
+            boolean hasFuel = next.onFuelCheckEvent(event);
+            long checked = System.nanoTime();
+            timings[PerformanceMonitor.FUEL_CHECK].record(checked - start);
+
+            if (hasFuel) {
+                next.onFuelUsageEvent(event);
+                long used = System.nanoTime();
+                timings[PerformanceMonitor.FUEL_USAGE].record(used - checked);
+
+                // Effects played while flying are recorded against this Jetpack
+                monitor.setCurrent(timings);
+                try {
+                    next.onFlyEvent(event);
+                } finally {
+                    monitor.setCurrent(null);
+                }
+                timings[PerformanceMonitor.FLY].record(System.nanoTime() - used);
+                activated(event.getPlayer());
+                if (startsNative) {
+                    nativeFlight.start(event.getPlayer(), registered, getCurrentTick());
+                }
+            }
+            return hasFuel;
+        }
+    }
+
+    /**
+     * Records that a player has successfully used a Jetpack, and keeps them
+     * exempt from anti-cheat fly checks until they have landed.
+     *
+     * @param player The player who used the Jetpack
+     */
+    private void activated(Player player) {
+        players.setLastActivation(players.indexOf(player), getCurrentTick());
+        if (CheatPluginAdapter.getAdapters().length != 0) {
+            leaseExemption(player, CheatPluginAdapter.Type.FLY);
         }
     }
 
+    /**
+     * Exempts a player from a anti-cheat check until the grace period has
+     * passed and they have landed
+     *
+     * @param player The player to exempt
+     * @param type   The type of exemption
+     */
+    void leaseExemption(Player player, CheatPluginAdapter.Type type) {
+        exemptions.lease(player, type,
+                getCurrentTick() + plugin.getSettings().getExemptionGraceTicks());
+    }
+
+    /**
+     * Checks if a player is flying with a glide assisted Jetpack, so their
+     * glide should be kept going
+     *
+     * @param player The player to check
+     * @return If the player's Jetpack is gliding them
+     */
+    boolean isGlideAssisted(Player player) {
+        Jetpack jetpack = sessions.getJetpack(players.find(player));
+        return jetpack != null && jetpack.isGlideAssisted();
+    }
+
+    public boolean isCrouching(Player player) {
+        int index = players.find(player);
+        return index != -1 && players.isCrouching(index);
+    }
+
+    public void setCrouching(Player player, boolean crouching) {
+        players.setCrouching(players.indexOf(player), crouching);
+    }
+
+    /**
+     * Stores input from a controller Jetpack, for the player's flight to pick
+     * up on the next tick.
+     *
+     * @param player The player using the controller
+     * @param input  The input, where 0 means no input
+     */
+    public void setControllerInput(Player player, byte input) {
+        players.setControllerInput(players.indexOf(player), input);
+    }
+
+    /**
+     * Obtains and clears the input waiting from a controller Jetpack.
+     *
+     * @param player The player to check
+     * @return The input, or 0 if there isn't any
+     */
+    public byte takeControllerInput(Player player) {
+        int index = players.indexOf(player);
+        byte input = players.getControllerInput(index);
+        players.setControllerInput(index, (byte) 0);
+        return input;
+    }
+
+    /**
+     * Returns the tick the player last successfully activated a Jetpack on
+     *
+     * @param player The player to check
+     * @return The number of ticks since EasyJetpack was enabled, or 0 if they haven't
+     */
+    public long getLastActivation(Player player) {
+        int index = players.find(player);
+        return index == -1 ? 0 : players.getLastActivation(index);
+    }
+
     /**
      * Finds a Jetpack by it's give name
      *
@@ -169,9 +475,9 @@ public class JetpackManager {
      * @return A Jetpack, or null if one cannot be found
      */
     public Jetpack getJetpackByName(String name) {
-        for (Jetpack next : jetpacks) {
-            if (next.getGiveName().equalsIgnoreCase(name)) {
-                return next;
+        for (RegisteredJetpack next : jetpacks) {
+            if (next.getJetpack().getGiveName().equalsIgnoreCase(name)) {
+                return next.getJetpack();
             }
         }
         return null;
@@ -184,27 +490,241 @@ public class JetpackManager {
      * @return A Jetpack, or null if one cannot be found
      */
     public Jetpack getJetpackByClass(Class<? extends Jetpack> jetpackClass) {
-        for (Jetpack next : jetpacks) {
-            if (next.getClass().getName()
+        for (RegisteredJetpack next : jetpacks) {
+            if (next.getJetpack().getClass().getName()
                     .equalsIgnoreCase(jetpackClass.getName())) {
-                return next;
+                return next.getJetpack();
             }
         }
         return null;
     }
 
+    /**
+     * Checks if a player is wearing a Jetpack as their chestplate
+     *
+     * @param player       The player to check
+     * @param jetpackClass The class of the Jetpack
+     * @return If the player is wearing the Jetpack, or false if the Jetpack isn't registered
+     */
+    public boolean isPlayerWearing(Player player, Class<? extends Jetpack> jetpackClass) {
+        Jetpack worn = getEquippedJetpack(player, Jetpack.Slot.CHESTPLATE);
+        return worn != null && worn.getClass() == jetpackClass;
+    }
+
+    /**
+     * Finds the registered Jetpack that a player has in a slot. This is cached
+     * until the player's equipment changes.
+     *
+     * @param player The player to check
+     * @param slot   The slot to check
+     * @return A Jetpack, or null if the slot doesn't contain one
+     */
+    public Jetpack getEquippedJetpack(Player player, Jetpack.Slot slot) {
+        RegisteredJetpack worn = equipment.getEquipped(player, slot);
+        return worn == null ? null : worn.getJetpack();
+    }
+
+    /**
+     * Tells the JetpackManager that a player's armor or held item may have
+     * changed. Plugins which modify these slots directly should call this.
+     *
+     * @param player The player whose equipment may have changed
+     */
+    public void invalidateEquipment(Player player) {
+        equipment.invalidate(player);
+    }
+
+    /**
+     * Tells the JetpackManager that the fuel in a player's inventory may have
+     * been moved, so it has to be found again. Plugins which add or remove fuel
+     * directly should call this.
+     *
+     * @param player The player whose inventory may have changed
+     */
+    public void invalidateFuel(Player player) {
+        fuelLedger.clear(player);
+        fuelIndex.invalidate(player);
+    }
+
+    /**
+     * Marks where every player's fuel is as out of date, after a command which
+     * may have given or taken fuel without firing any inventory events
+     */
+    void invalidateAllFuel() {
+        fuelIndex.invalidateAll();
+    }
+
+    /**
+     * Returns the ledger of fuel each player has burning
+     *
+     * @return A FuelLedger
+     */
+    FuelLedger getFuelLedger() {
+        return fuelLedger;
+    }
+
+    /**
+     * Returns the anti-cheat exemptions each player holds
+     *
+     * @return A ExemptionLeases
+     */
+    ExemptionLeases getExemptions() {
+        return exemptions;
+    }
+
+    /**
+     * Returns the players who are flying with creative toggle Jetpacks
+     *
+     * @return A NativeFlight
+     */
+    NativeFlight getNativeFlight() {
+        return nativeFlight;
+    }
+
+    /**
+     * Returns the timings of each Jetpack's events
+     *
+     * @return A PerformanceMonitor
+     */
+    PerformanceMonitor getPerformanceMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Returns the flight state of a player, which is reused every tick
+     *
+     * @param player The player who is flying
+     * @return A FlightPhysics.State
+     */
+    FlightPhysics.State getFlightState(Player player) {
+        int index = players.indexOf(player);
+        if (index >= flightStates.length) {
+            flightStates = Arrays.copyOf(flightStates, Math.max(flightStates.length * 2, index + 1));
+        }
+        if (flightStates[index] == null) {
+            flightStates[index] = new FlightPhysics.State();
+        }
+        return flightStates[index];
+    }
+
+    /**
+     * Returns the index of where each player's fuel is
+     *
+     * @return A FuelIndex
+     */
+    FuelIndex getFuelIndex() {
+        return fuelIndex;
+    }
+
+    /**
+     * Gives a player who has joined their index, which their state is stored
+     * against.
+     *
+     * @param player The player who joined
+     */
+    void trackPlayer(Player player) {
+        players.indexOf(player);
+    }
+
+    /**
+     * Removes everything that is cached about a player, once they have left.
+     *
+     * @param player The player who left
+     */
+    void forgetPlayer(Player player) {
+        int index = players.find(player);
+        if (index == -1) {
+            return;
+        }
+        sessions.stop(index);
+        equipment.remove(index);
+        fuelLedger.remove(index);
+        fuelIndex.invalidate(index);
+        nativeFlight.remove(index);
+        exemptions.remove(index);
+        intents.clear(index);
+        if (index < flightStates.length) {
+            flightStates[index] = null;
+        }
+        for (RegisteredJetpack next : jetpacks) {
+            if (next.getLimiter() != null) {
+                next.getLimiter().clear(index);
+            }
+        }
+        players.remove(player);
+    }
+
+    /**
+     * Returns how many ticks the JetpackManager has been running for
+     *
+     * @return The current tick
+     */
+    long getCurrentTick() {
+        return sessions.getCurrentTick();
+    }
+
+    /**
+     * Returns how long recent server ticks have taken, on average
+     *
+     * @return A tick length, in milliseconds
+     */
+    double getAverageTickMillis() {
+        return sessions.getAverageTickMillis();
+    }
+
+    /**
+     * Finds the index that a player's state is stored against
+     *
+     * @param player The player to find
+     * @return The player's index
+     */
+    int indexOf(Player player) {
+        return players.indexOf(player);
+    }
+
+    /**
+     * Creates a new item for a registered Jetpack, from the template which was
+     * cached when it was registered.
+     *
+     * @param jetpack The Jetpack to create the item for
+     * @return A ItemStack, or the result of getItem() if the Jetpack isn't registered
+     */
+    public ItemStack createItem(Jetpack jetpack) {
+        for (RegisteredJetpack next : jetpacks) {
+            if (next.getJetpack() == jetpack) {
+                return next.createItem();
+            }
+        }
+        return jetpack.getItem();
+    }
+
     /**
      * Obtains a array of all registered jetpacks
      *
      * @return A Jetpack array
      */
     public Jetpack[] getJetpacks() {
-        return jetpacks.toArray(new Jetpack[jetpacks.size()]);
+        Jetpack[] result = new Jetpack[jetpacks.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = jetpacks.get(i).getJetpack();
+        }
+        return result;
     }
 
     public boolean isJetpack(ItemStack item) {
-        for (Jetpack next : jetpacks) {
-            if (Utils.isItemStackEqual(next.getItem(), item)) {
+        if (item == null || !item.hasItemMeta()) {
+            return false;
+        }
+
+        ItemMeta meta = null;
+        for (RegisteredJetpack next : jetpacks) {
+            if (next.getFingerprint().getMaterial() != item.getType()) {
+                continue;
+            }
+            if (meta == null) {
+                meta = item.getItemMeta();
+            }
+            if (next.getFingerprint().matches(item.getType(), meta)) {
                 return true;
             }
         }
@@ -0,0 +1,219 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.JetpackEvent;
+import org.bukkit.GameMode;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Keeps creative toggle Jetpacks running. These let the player fly the same
+ * way as in creative mode, so their movement is worked out by their client,
+ * and nothing has to be sent to them each tick.
+ * <p/>
+ * Each tick, every flight is checked against the player's cached equipment,
+ * and stopped if they have taken the Jetpack off, or have landed. Fuel is
+ * used by how long the player has been flying: once every CHARGE_TICKS ticks
+ * spent in the air, the Jetpack is passed a CREATIVE_TOGGLE event, which
+ * checks the player's permission and fuel as any other event does. If that
+ * fails, the flight is stopped. When a flight stops, the player's flight
+ * settings are put back to what they were before, unless another plugin has
+ * taken their flight away, or their game mode has changed. Their settings
+ * then belong to whatever changed them, and are left alone.
+ */
+class NativeFlight {
+    /**
+     * How many ticks of flight each CREATIVE_TOGGLE event pays for
+     */
+    static final int CHARGE_TICKS = 20;
+    /**
+     * How long after starting a player can be on the ground without the
+     * flight stopping, so they can take off
+     */
+    private static final int TAKEOFF_TICKS = 10;
+
+    private final JetpackManager manager;
+    private final PlayerIndex players;
+
+    // Indexed by player index
+    private Player[] byIndex = new Player[0];
+    private RegisteredJetpack[] jetpacks = new RegisteredJetpack[0];
+    private long[] started = new long[0];
+    private int[] flown = new int[0];
+    private float[] previousSpeed = new float[0];
+    private GameMode[] modes = new GameMode[0];
+    private final BitSet previousAllow = new BitSet();
+    private int[] position = new int[0];
+
+    // The indexes of the players who are flying, packed
+    private int[] active = new int[16];
+    private int activeCount;
+
+    NativeFlight(JetpackManager manager, PlayerIndex players) {
+        this.manager = manager;
+        this.players = players;
+    }
+
+    /**
+     * Lets a player fly with a Jetpack, unless they already are
+     *
+     * @param player     The player who activated the Jetpack
+     * @param registered The Jetpack they are flying with
+     * @param tick       The current tick
+     */
+    void start(Player player, RegisteredJetpack registered, long tick) {
+        int index = players.indexOf(player);
+        if (isActive(index) || player.getGameMode() == GameMode.CREATIVE
+                || player.getGameMode() == GameMode.SPECTATOR) {
+            return;
+        }
+
+        if (index >= byIndex.length) {
+            int size = Math.max(byIndex.length * 2, index + 1);
+            byIndex = Arrays.copyOf(byIndex, size);
+            jetpacks = Arrays.copyOf(jetpacks, size);
+            started = Arrays.copyOf(started, size);
+            flown = Arrays.copyOf(flown, size);
+            previousSpeed = Arrays.copyOf(previousSpeed, size);
+            modes = Arrays.copyOf(modes, size);
+            position = Arrays.copyOf(position, size);
+        }
+        byIndex[index] = player;
+        jetpacks[index] = registered;
+        started[index] = tick;
+        flown[index] = 0;
+        previousSpeed[index] = player.getFlySpeed();
+        previousAllow.set(index, player.getAllowFlight());
+        modes[index] = player.getGameMode();
+
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, active.length * 2);
+        }
+        position[index] = activeCount;
+        active[activeCount++] = index;
+
+        player.setAllowFlight(true);
+        player.setFlying(true);
+        player.setFlySpeed(registered.getJetpack().getFlySpeed());
+        CheatPluginAdapter.addException(player, CheatPluginAdapter.Type.FLY);
+    }
+
+    /**
+     * Checks every flight, and charges those which are due
+     *
+     * @param tick The current tick
+     */
+    void tick(long tick) {
+        // Walk backwards, so flights moved by remove() have already been checked
+        for (int i = activeCount - 1; i >= 0; i--) {
+            if (i >= activeCount) {
+                continue;
+            }
+
+            int index = active[i];
+            Player player = byIndex[index];
+            RegisteredJetpack registered = jetpacks[index];
+            if (!player.isOnline()) {
+                remove(index);
+            } else if (!player.getAllowFlight() || player.getGameMode() != modes[index]
+                    || manager.getEquippedJetpack(player, registered.getJetpack().getSlot())
+                    != registered.getJetpack()) {
+                stop(index);
+            } else if (player.isFlying()) {
+                if (++flown[index] >= CHARGE_TICKS) {
+                    flown[index] = 0;
+                    JetpackEvent event = new JetpackEvent(player,
+                            FlightTypes.CREATIVE_TOGGLE, null, null);
+                    if (!manager.dispatchNative(registered, event)) {
+                        stop(index);
+                    }
+                }
+            } else if (player.isOnGround() && tick - started[index] >= TAKEOFF_TICKS) {
+                stop(index);
+            }
+        }
+    }
+
+    /**
+     * Checks if a player is flying with a creative toggle Jetpack
+     *
+     * @param index The index of the player to check
+     * @return If the player is flying
+     */
+    boolean isActive(int index) {
+        return index < jetpacks.length && jetpacks[index] != null;
+    }
+
+    /**
+     * Stops a player's flight, and puts their flight settings back. If
+     * another plugin has taken away their flight, or their game mode has
+     * changed, their settings are left as they are.
+     *
+     * @param index The index of the player to stop
+     */
+    void stop(int index) {
+        if (!isActive(index)) {
+            return;
+        }
+
+        Player player = byIndex[index];
+        if (!player.getAllowFlight() || player.getGameMode() != modes[index]) {
+            release(index);
+            return;
+        }
+
+        boolean allow = previousAllow.get(index);
+        player.setFlySpeed(previousSpeed[index]);
+        if (!allow) {
+            player.setFlying(false);
+        }
+        player.setAllowFlight(allow);
+        release(index);
+    }
+
+    /**
+     * Stops a player's flight without touching their flight settings
+     *
+     * @param index The index of the player to stop
+     */
+    private void release(int index) {
+        // Stay exempt while they fall back to the ground
+        Player player = byIndex[index];
+        CheatPluginAdapter.leaseException(player, CheatPluginAdapter.Type.FLY);
+        CheatPluginAdapter.removeException(player, CheatPluginAdapter.Type.FLY);
+        remove(index);
+    }
+
+    /**
+     * Stops every flight, such as when the plugin is disabled
+     */
+    void stopAll() {
+        while (activeCount > 0) {
+            stop(active[activeCount - 1]);
+        }
+    }
+
+    /**
+     * Forgets a player's flight without touching the player, once they have
+     * left
+     *
+     * @param index The index of the player who left
+     */
+    void remove(int index) {
+        if (!isActive(index)) {
+            return;
+        }
+
+        // Move the last flight into this one's place
+        int last = active[--activeCount];
+        active[position[index]] = last;
+        position[last] = position[index];
+
+        byIndex[index] = null;
+        jetpacks[index] = null;
+        modes[index] = null;
+        previousAllow.clear(index);
+    }
+}
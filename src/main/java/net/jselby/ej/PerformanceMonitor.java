@@ -0,0 +1,233 @@
+package net.jselby.ej;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Times the hot paths of each Jetpack: dispatching events to it, its fuel
+ * check, fuel usage and fly events, and the effects those play. Times are
+ * kept per Jetpack give name, in fixed bucket histograms made of atomic
+ * counters, so recording a time never locks or allocates.
+ * <p/>
+ * Stages are timed separately, except that the time spent playing effects is
+ * also part of the fly event which played them.
+ */
+class PerformanceMonitor {
+    static final int DISPATCH = 0;
+    static final int FUEL_CHECK = 1;
+    static final int FUEL_USAGE = 2;
+    static final int FLY = 3;
+    static final int EFFECTS = 4;
+    static final String[] STAGE_NAMES = {"dispatch", "fuel check", "fuel usage", "fly", "effects"};
+
+    /**
+     * The name time is recorded against when no Jetpack handled a event
+     */
+    static final String NO_JETPACK = "(none)";
+
+    private final ConcurrentHashMap<String, Timings[]> byJetpack = new ConcurrentHashMap<String, Timings[]>();
+    private final Timings[] unmatched = getTimings(NO_JETPACK);
+    private Timings[] current;
+    private volatile long resetAt = System.nanoTime();
+    private volatile long resetTick;
+
+    /**
+     * Finds the timings of a Jetpack, creating them if they don't exist yet.
+     * These are kept when the Jetpack is removed, or the configuration is
+     * reloaded, until they are reset.
+     *
+     * @param giveName The give name of the Jetpack
+     * @return The Jetpack's timings, indexed by stage
+     */
+    Timings[] getTimings(String giveName) {
+        Timings[] timings = byJetpack.get(giveName);
+        if (timings == null) {
+            timings = new Timings[STAGE_NAMES.length];
+            for (int i = 0; i < timings.length; i++) {
+                timings[i] = new Timings();
+            }
+            Timings[] existing = byJetpack.putIfAbsent(giveName, timings);
+            if (existing != null) {
+                timings = existing;
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Returns the timings of events which no Jetpack handled
+     *
+     * @return The timings, indexed by stage
+     */
+    Timings[] getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Sets the Jetpack whose fly event is running, so the effects it plays
+     * are recorded against it.
+     *
+     * @param timings The Jetpack's timings, or null once it has finished
+     */
+    void setCurrent(Timings[] timings) {
+        current = timings;
+    }
+
+    /**
+     * Returns the Jetpack whose fly event is running
+     *
+     * @return The Jetpack's timings, or the unmatched timings if none is
+     */
+    Timings[] getCurrent() {
+        return current == null ? unmatched : current;
+    }
+
+    /**
+     * Returns every Jetpack's timings
+     *
+     * @return A map of give names to timings
+     */
+    Map<String, Timings[]> getAll() {
+        return byJetpack;
+    }
+
+    /**
+     * Clears every timing, and starts measuring again from now
+     *
+     * @param tick The current tick
+     */
+    void reset(long tick) {
+        for (Timings[] timings : byJetpack.values()) {
+            for (Timings next : timings) {
+                next.reset();
+            }
+        }
+        resetAt = System.nanoTime();
+        resetTick = tick;
+    }
+
+    /**
+     * Returns when the timings were last reset
+     *
+     * @return A time from System.nanoTime()
+     */
+    long getResetAt() {
+        return resetAt;
+    }
+
+    /**
+     * Returns the tick the timings were last reset on
+     *
+     * @return A tick
+     */
+    long getResetTick() {
+        return resetTick;
+    }
+
+    /**
+     * How long one stage has taken. Times are counted in buckets which are a
+     * quarter of a power of two wide, so percentiles are accurate to within
+     * 25%.
+     */
+    static class Timings {
+        private static final int BUCKETS = 256;
+
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Records a call
+         *
+         * @param nanos How long the call took, in nanoseconds
+         */
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            calls.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        /**
+         * Estimates a percentile of the recorded times
+         *
+         * @param percentile The percentile, from 0 to 100
+         * @return The upper bound of the bucket the percentile falls in, in
+         * nanoseconds, or 0 if nothing has been recorded
+         */
+        long getPercentile(double percentile) {
+            long count = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+
+        long getCalls() {
+            return calls.get();
+        }
+
+        long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        private void reset() {
+            calls.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        /**
+         * Finds the bucket for a time. Below 4 nanoseconds each time has its
+         * own bucket; above that, each power of two is split into four, by
+         * the two bits after the highest set bit.
+         */
+        private static int bucketOf(long nanos) {
+            if (nanos < 4) {
+                return (int) nanos;
+            }
+            int shift = 61 - Long.numberOfLeadingZeros(nanos);
+            return (shift + 1) * 4 + (int) ((nanos >>> shift) & 3);
+        }
+
+        private static long upperBoundOf(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int shift = bucket / 4 - 1;
+            long lower = (long) (4 + bucket % 4) << shift;
+            return lower + (1L << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package net.jselby.ej;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Gives each online player a small, dense index, which per-player state can
+ * be stored against in plain arrays. Indexes are handed out when a player
+ * joins, and reused once they leave.
+ * <p/>
+ * Players are found by their UUID in a open addressing table, so looking up a
+ * index doesn't box anything or hash any strings. This also stores the
+ * simple state that is read every tick: whether the player is crouching, any
+ * input waiting from a controller, and the tick they last activated a Jetpack.
+ */
+class PlayerIndex {
+    private static final int EMPTY = -1;
+
+    // UUID -> index table, using linear probing
+    private long[] keyMost = new long[64];
+    private long[] keyLeast = new long[64];
+    private int[] keyIndex = new int[64];
+    private int keyCount;
+
+    // Free indexes, and the next index that has never been used
+    private int[] free = new int[16];
+    private int freeCount;
+    private int nextIndex;
+
+    // Per-player state, indexed by player index
+    private final BitSet crouching = new BitSet();
+    private byte[] controllerInput = new byte[16];
+    private long[] lastActivation = new long[16];
+
+    PlayerIndex() {
+        Arrays.fill(keyIndex, EMPTY);
+    }
+
+    /**
+     * Finds the index of a player, giving them one if they don't have one yet.
+     *
+     * @param player The player to find
+     * @return The player's index
+     */
+    int indexOf(Player player) {
+        UUID id = player.getUniqueId();
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+
+        int mask = keyIndex.length - 1;
+        int pos = hash(most, least) & mask;
+        while (keyIndex[pos] != EMPTY) {
+            if (keyMost[pos] == most && keyLeast[pos] == least) {
+                return keyIndex[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+
+        int index = freeCount > 0 ? free[--freeCount] : nextIndex++;
+        ensureCapacity(index);
+        keyMost[pos] = most;
+        keyLeast[pos] = least;
+        keyIndex[pos] = index;
+        keyCount++;
+
+        // Keep the table at most half full
+        if (keyCount * 2 > keyIndex.length) {
+            rehash(keyIndex.length * 2);
+        }
+        return index;
+    }
+
+    /**
+     * Finds the index of a player, without giving them one. Checks that only
+     * read state should use this, so asking about a player who isn't online
+     * doesn't take up a index that is never released.
+     *
+     * @param player The player to find
+     * @return The player's index, or -1 if they don't have one
+     */
+    int find(Player player) {
+        UUID id = player.getUniqueId();
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+
+        int mask = keyIndex.length - 1;
+        int pos = hash(most, least) & mask;
+        while (keyIndex[pos] != EMPTY) {
+            if (keyMost[pos] == most && keyLeast[pos] == least) {
+                return keyIndex[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Releases a player's index, and clears their state so it can be reused.
+     *
+     * @param player The player who left
+     * @return The index that was released, or -1 if they didn't have one
+     */
+    int remove(Player player) {
+        UUID id = player.getUniqueId();
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+
+        int mask = keyIndex.length - 1;
+        int pos = hash(most, least) & mask;
+        while (keyIndex[pos] != EMPTY) {
+            if (keyMost[pos] == most && keyLeast[pos] == least) {
+                int index = keyIndex[pos];
+                deleteAt(pos);
+
+                crouching.clear(index);
+                controllerInput[index] = 0;
+                lastActivation[index] = 0;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, free.length * 2);
+                }
+                free[freeCount++] = index;
+                return index;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Returns one more than the highest index handed out so far, which arrays
+     * indexed by player need to be able to hold.
+     *
+     * @return The index capacity
+     */
+    int getCapacity() {
+        return nextIndex;
+    }
+
+    boolean isCrouching(int index) {
+        return crouching.get(index);
+    }
+
+    void setCrouching(int index, boolean value) {
+        crouching.set(index, value);
+    }
+
+    byte getControllerInput(int index) {
+        return controllerInput[index];
+    }
+
+    void setControllerInput(int index, byte input) {
+        controllerInput[index] = input;
+    }
+
+    long getLastActivation(int index) {
+        return lastActivation[index];
+    }
+
+    void setLastActivation(int index, long tick) {
+        lastActivation[index] = tick;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= controllerInput.length) {
+            int size = Math.max(controllerInput.length * 2, index + 1);
+            controllerInput = Arrays.copyOf(controllerInput, size);
+            lastActivation = Arrays.copyOf(lastActivation, size);
+        }
+    }
+
+    /**
+     * Removes a entry from the table, shifting back any entries which probed
+     * past it so that no tombstones are needed.
+     */
+    private void deleteAt(int pos) {
+        int mask = keyIndex.length - 1;
+        keyIndex[pos] = EMPTY;
+        keyCount--;
+
+        int next = (pos + 1) & mask;
+        while (keyIndex[next] != EMPTY) {
+            int home = hash(keyMost[next], keyLeast[next]) & mask;
+            // Move the entry back if its home isn't between the hole and itself
+            if (((next - home) & mask) >= ((next - pos) & mask)) {
+                keyMost[pos] = keyMost[next];
+                keyLeast[pos] = keyLeast[next];
+                keyIndex[pos] = keyIndex[next];
+                keyIndex[next] = EMPTY;
+                pos = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void rehash(int size) {
+        long[] oldMost = keyMost;
+        long[] oldLeast = keyLeast;
+        int[] oldIndex = keyIndex;
+
+        keyMost = new long[size];
+        keyLeast = new long[size];
+        keyIndex = new int[size];
+        Arrays.fill(keyIndex, EMPTY);
+
+        int mask = size - 1;
+        for (int i = 0; i < oldIndex.length; i++) {
+            if (oldIndex[i] == EMPTY) {
+                continue;
+            }
+            int pos = hash(oldMost[i], oldLeast[i]) & mask;
+            while (keyIndex[pos] != EMPTY) {
+                pos = (pos + 1) & mask;
+            }
+            keyMost[pos] = oldMost[i];
+            keyLeast[pos] = oldLeast[i];
+            keyIndex[pos] = oldIndex[i];
+        }
+    }
+
+    private static int hash(long most, long least) {
+        long bits = most ^ least;
+        int hash = (int) (bits ^ (bits >>> 32));
+        return hash ^ (hash >>> 16);
+    }
+}
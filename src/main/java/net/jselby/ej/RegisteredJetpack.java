@@ -0,0 +1,73 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.Jetpack;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A Jetpack which has been registered with the JetpackManager, alongside the
+ * values that are cached for it while it is registered.
+ */
+class RegisteredJetpack {
+    private final Jetpack jetpack;
+    private final ItemStack template;
+    private final ItemFingerprint fingerprint;
+    private final PerformanceMonitor.Timings[] timings;
+    private final ActivationLimiter limiter;
+
+    RegisteredJetpack(Jetpack jetpack, PerformanceMonitor monitor) {
+        this.jetpack = jetpack;
+        this.template = jetpack.getItem();
+        this.fingerprint = new ItemFingerprint(template);
+        this.timings = monitor.getTimings(jetpack.getGiveName());
+
+        double rate = jetpack.getActivationRate();
+        this.limiter = rate > 0
+                ? new ActivationLimiter(rate, Math.max(1, jetpack.getActivationBurst())) : null;
+    }
+
+    /**
+     * Returns the Jetpack that was registered
+     *
+     * @return A Jetpack
+     */
+    Jetpack getJetpack() {
+        return jetpack;
+    }
+
+    /**
+     * Creates a copy of the Jetpack's item, as it was when it was registered.
+     * The cached template itself is never handed out.
+     *
+     * @return A new ItemStack
+     */
+    ItemStack createItem() {
+        return template.clone();
+    }
+
+    /**
+     * Returns the fingerprint used to identify this Jetpack's item
+     *
+     * @return A ItemFingerprint
+     */
+    ItemFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns how long this Jetpack's events have taken
+     *
+     * @return The timings, indexed by PerformanceMonitor stage
+     */
+    PerformanceMonitor.Timings[] getTimings() {
+        return timings;
+    }
+
+    /**
+     * Returns what limits how often players can activate this Jetpack
+     *
+     * @return A ActivationLimiter, or null if there is no limit
+     */
+    ActivationLimiter getLimiter() {
+        return limiter;
+    }
+}
@@ -0,0 +1,429 @@
+package net.jselby.ej;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.logging.Logger;
+
+/**
+ * A compiled, read only copy of config.yml. Code which runs every tick reads
+ * these values instead of looking up paths in the configuration, and
+ * materials are resolved once here rather than by name on every use.
+ * <p/>
+ * A new Settings is built when the plugin is enabled, and when the
+ * configuration is reloaded. It is then published by EasyJetpack as a whole,
+ * so a reload never leaves half of the old values in place.
+ *
+ * @see EasyJetpack#getSettings()
+ */
+public final class Settings {
+    private final boolean fuelEnabled;
+    private final Material fuelMaterial;
+    private final int fuelDurability;
+    private final JetpackSettings traditional;
+    private final JetpackSettings burst;
+    private final JetpackSettings teleport;
+    private final JetpackSettings hover;
+    private final JetpackSettings boots;
+    private final double effectViewRadius;
+    private final int effectBudget;
+    private final boolean effectLodEnabled;
+    private final double effectLodReduce;
+    private final double effectLodMinimal;
+    private final boolean jfrEnabled;
+    private final int exemptionGraceTicks;
+    private final boolean coalesceEnabled;
+    private final double velocityEpsilon;
+    private final int velocityRefreshTicks;
+
+    private Settings(FileConfiguration config, Logger logger) {
+        fuelEnabled = config.getBoolean("fuel.enabled", true);
+        fuelMaterial = getMaterial(config, logger, "fuel.material", Material.COAL);
+        fuelDurability = config.getInt("fuel.durability", -1);
+
+        traditional = new JetpackSettings(config, logger, "jetpacks.traditional",
+                Material.GOLD_CHESTPLATE);
+        burst = new JetpackSettings(config, logger, "jetpacks.burst",
+                Material.GOLD_CHESTPLATE);
+        teleport = new JetpackSettings(config, logger, "jetpacks.teleport",
+                Material.CHAINMAIL_CHESTPLATE);
+        hover = new JetpackSettings(config, logger, "jetpacks.hover",
+                Material.CHAINMAIL_CHESTPLATE);
+        boots = new JetpackSettings(config, logger, "jetpacks.boots",
+                Material.LEATHER_BOOTS);
+
+        effectViewRadius = config.getDouble("effects.viewradius", 64);
+        effectBudget = config.getInt("effects.budget", 2000);
+        effectLodEnabled = config.getBoolean("effects.lod.enabled", true);
+        effectLodReduce = config.getDouble("effects.lod.reduce", 55);
+        effectLodMinimal = config.getDouble("effects.lod.minimal", 70);
+        jfrEnabled = config.getBoolean("diagnostics.jfr", false);
+        exemptionGraceTicks = Math.max(1, config.getInt("anticheat.grace", 40));
+        coalesceEnabled = config.getBoolean("dispatch.coalesce", false);
+        velocityEpsilon = config.getDouble("velocity.epsilon", 0.01);
+        velocityRefreshTicks = Math.max(1, config.getInt("velocity.refresh", 5));
+    }
+
+    /**
+     * Compiles the configuration into a Settings instance
+     *
+     * @param config The configuration to read
+     * @param logger A logger to warn about invalid values with
+     * @return A new Settings
+     */
+    public static Settings compile(FileConfiguration config, Logger logger) {
+        return new Settings(config, logger);
+    }
+
+    private static Material getMaterial(FileConfiguration config, Logger logger,
+                                        String path, Material def) {
+        String name = config.getString(path, def.name());
+        Material material = Material.getMaterial(name);
+        if (material == null) {
+            logger.warning("Unknown material \"" + name + "\" at " + path
+                    + ", using " + def.name() + " instead.");
+            return def;
+        }
+        return material;
+    }
+
+    /**
+     * Is fuel usage enabled?
+     *
+     * @return If fuel is needed to fly
+     */
+    public boolean isFuelEnabled() {
+        return fuelEnabled;
+    }
+
+    /**
+     * Returns the material used for fuel
+     *
+     * @return A Bukkit material
+     */
+    public Material getFuelMaterial() {
+        return fuelMaterial;
+    }
+
+    /**
+     * Returns the durability that fuel must have
+     *
+     * @return A durability, or -1 for any
+     */
+    public int getFuelDurability() {
+        return fuelDurability;
+    }
+
+    /**
+     * Checks if a item is fuel. This respects durability, if it was set.
+     *
+     * @param item The item to check
+     * @return If the item is fuel
+     */
+    public boolean isFuel(ItemStack item) {
+        return item != null && item.getType() == fuelMaterial
+                && (fuelDurability == -1 || item.getDurability() == fuelDurability);
+    }
+
+    /**
+     * Returns how far away players can see Jetpack effects from
+     *
+     * @return A distance in blocks, or a negative number for the whole world
+     */
+    public double getEffectViewRadius() {
+        return effectViewRadius;
+    }
+
+    /**
+     * Returns the most effects that can be sent to players in one tick
+     *
+     * @return A number of effects, or a negative number for no limit
+     */
+    public int getEffectBudget() {
+        return effectBudget;
+    }
+
+    /**
+     * Should effects be reduced when the server is falling behind?
+     *
+     * @return If effect level of detail is enabled
+     */
+    public boolean isEffectLodEnabled() {
+        return effectLodEnabled;
+    }
+
+    /**
+     * Returns the average tick length at which effects are reduced
+     *
+     * @return A tick length, in milliseconds
+     */
+    public double getEffectLodReduce() {
+        return effectLodReduce;
+    }
+
+    /**
+     * Returns the average tick length at which effects are reduced to a minimum
+     *
+     * @return A tick length, in milliseconds
+     */
+    public double getEffectLodMinimal() {
+        return effectLodMinimal;
+    }
+
+    /**
+     * Should Jetpack activity be recorded as Flight Recorder events?
+     *
+     * @return If Flight Recorder events are enabled
+     */
+    public boolean isJfrEnabled() {
+        return jfrEnabled;
+    }
+
+    /**
+     * How long after a Jetpack was last used that players stay exempt from
+     * anti-cheat checks, once they are back on the ground
+     *
+     * @return A number of ticks
+     */
+    public int getExemptionGraceTicks() {
+        return exemptionGraceTicks;
+    }
+
+    /**
+     * Should the crouches and clicks each player makes during a tick be
+     * handled together, at the end of the tick?
+     *
+     * @return If Jetpack events are coalesced
+     */
+    public boolean isCoalesceEnabled() {
+        return coalesceEnabled;
+    }
+
+    /**
+     * Returns the smallest change in a flying player's velocity that is sent
+     * to them
+     *
+     * @return A change in velocity, or below 0 to send every velocity
+     */
+    public double getVelocityEpsilon() {
+        return velocityEpsilon;
+    }
+
+    /**
+     * Returns the most ticks that can pass before a flying player's velocity
+     * is sent again, even if it hasn't changed
+     *
+     * @return A number of ticks
+     */
+    public int getVelocityRefreshTicks() {
+        return velocityRefreshTicks;
+    }
+
+    public JetpackSettings getTraditional() {
+        return traditional;
+    }
+
+    public JetpackSettings getBurst() {
+        return burst;
+    }
+
+    public JetpackSettings getTeleport() {
+        return teleport;
+    }
+
+    public JetpackSettings getHover() {
+        return hover;
+    }
+
+    public JetpackSettings getBoots() {
+        return boots;
+    }
+
+    /**
+     * The settings of one of the built-in Jetpacks
+     */
+    public static final class JetpackSettings {
+        private final boolean enabled;
+        private final Material material;
+        private final boolean durability;
+        private final boolean craftable;
+        private final boolean antiAnvil;
+        private final boolean jetpackRequired;
+        private final boolean staged;
+        private final long timeoutMillis;
+        private final int maxPending;
+        private final double rateLimit;
+        private final int rateLimitBurst;
+        private final boolean nativeFlight;
+        private final float flySpeed;
+        private final boolean glide;
+        private final int glideCadence;
+
+        private JetpackSettings(FileConfiguration config, Logger logger,
+                                String path, Material defaultMaterial) {
+            enabled = config.getBoolean(path + ".enabled", true);
+            material = getMaterial(config, logger, path + ".material", defaultMaterial);
+            durability = config.getBoolean(path + ".durability", true);
+            craftable = config.getBoolean(path + ".craftable", true);
+            antiAnvil = config.getBoolean(path + ".antianvil", true);
+            jetpackRequired = config.getBoolean(path + ".jetpackrequired", false);
+            staged = config.getBoolean(path + ".staged", true);
+            timeoutMillis = config.getLong(path + ".timeout", 2000);
+            maxPending = config.getInt(path + ".maxpending", 16);
+            rateLimit = config.getDouble(path + ".ratelimit.rate", 0);
+            rateLimitBurst = config.getInt(path + ".ratelimit.burst", 1);
+            nativeFlight = config.getBoolean(path + ".native", false);
+            flySpeed = (float) Math.max(-1, Math.min(1,
+                    config.getDouble(path + ".flyspeed", 0.1)));
+            glide = config.getBoolean(path + ".glide", false);
+            glideCadence = Math.max(1, config.getInt(path + ".cadence", 10));
+        }
+
+        /**
+         * Is this Jetpack enabled?
+         *
+         * @return If the Jetpack should be registered
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Returns the material this Jetpack is made from
+         *
+         * @return A Bukkit material
+         */
+        public Material getMaterial() {
+            return material;
+        }
+
+        /**
+         * Is durability enabled on this Jetpack?
+         *
+         * @return If using the Jetpack damages it
+         */
+        public boolean isDurability() {
+            return durability;
+        }
+
+        /**
+         * Is the Jetpack craftable?
+         *
+         * @return If the crafting recipe should be registered
+         */
+        public boolean isCraftable() {
+            return craftable;
+        }
+
+        /**
+         * Is repairing the Jetpack disabled?
+         *
+         * @return If anvils should refuse to repair it
+         */
+        public boolean isAntiAnvil() {
+            return antiAnvil;
+        }
+
+        /**
+         * Does this Jetpack need another Jetpack to function? Only used by the
+         * fall boots.
+         *
+         * @return If a Jetpack must also be worn
+         */
+        public boolean isJetpackRequired() {
+            return jetpackRequired;
+        }
+
+        /**
+         * Should chunks be loaded before teleporting? Only used by the
+         * teleportation Jetpack.
+         *
+         * @return If teleports are staged
+         */
+        public boolean isStaged() {
+            return staged;
+        }
+
+        /**
+         * Returns how long a staged teleport can wait for chunks before it is
+         * given up on. Only used by the teleportation Jetpack.
+         *
+         * @return A time, in milliseconds
+         */
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        /**
+         * Returns the most teleports that can be waiting at once, across every
+         * player. Only used by the teleportation Jetpack.
+         *
+         * @return A number of teleports
+         */
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        /**
+         * Returns how many times a second each player can activate this
+         * Jetpack, once they have used up their burst. Only used by Jetpacks
+         * activated by crouching.
+         *
+         * @return A number of activations, or 0 for no limit
+         */
+        public double getRateLimit() {
+            return rateLimit;
+        }
+
+        /**
+         * Returns how many activations each player can save up, and use in
+         * quick succession
+         *
+         * @return A number of activations
+         */
+        public int getRateLimitBurst() {
+            return rateLimitBurst;
+        }
+
+        /**
+         * Should the player fly as they would in creative mode, rather than
+         * being pushed around by the server? Only used by the hover Jetpack.
+         *
+         * @return If creative mode flight is used
+         */
+        public boolean isNativeFlight() {
+            return nativeFlight;
+        }
+
+        /**
+         * Returns how fast players fly in creative mode flight. Only used by
+         * the hover Jetpack.
+         *
+         * @return A fly speed, from -1 to 1
+         */
+        public float getFlySpeed() {
+            return flySpeed;
+        }
+
+        /**
+         * Should players glide between thrusts, as they would with a elytra?
+         * Only used by the burst Jetpack.
+         *
+         * @return If gliding is enabled
+         */
+        public boolean isGlide() {
+            return glide;
+        }
+
+        /**
+         * Returns how many ticks apart thrusts are while gliding. Only used by
+         * the burst Jetpack.
+         *
+         * @return A number of ticks
+         */
+        public int getGlideCadence() {
+            return glideCadence;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package net.jselby.ej;
 
+import net.jselby.ej.api.EasyJetpackAPI;
 import net.jselby.ej.api.Jetpack.Slot;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -11,7 +13,6 @@ import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -20,6 +21,9 @@ import java.util.List;
  * @author James
  */
 public class Utils {
+    // Reused by fly(), which only runs on the main thread
+    private static final Location flightLocation = new Location(null, 0, 0, 0);
+    private static final Vector flightVelocity = new Vector();
 
     /**
      * A method to convert a String array to a List of Strings
@@ -41,51 +45,49 @@ public class Utils {
      * @return If the items are equal
      */
     public static boolean isItemStackEqual(ItemStack item, ItemStack item2) {
-        return item != null
-                && item2 != null
-                && item.hasItemMeta()
-                && item2.hasItemMeta()
-                && item.getType().equals(item2.getType())
-                && item.getItemMeta().hasDisplayName()
-                && item2.getItemMeta().hasDisplayName()
-                && item.getItemMeta().hasLore()
-                && item2.getItemMeta().hasLore()
-                && item.getItemMeta().getDisplayName()
-                .equalsIgnoreCase(item2.getItemMeta().getDisplayName())
-                && isArrayEqual(item.getItemMeta().getLore(), item2
-                .getItemMeta().getLore());
+        if (item == null || item2 == null
+                || !item.getType().equals(item2.getType())
+                || !item.hasItemMeta()
+                || !item2.hasItemMeta()) {
+            return false;
+        }
 
+        // getItemMeta() creates a copy, so only call it once per item
+        ItemMeta meta = item.getItemMeta();
+        ItemMeta meta2 = item2.getItemMeta();
+        return meta.hasDisplayName()
+                && meta2.hasDisplayName()
+                && meta.hasLore()
+                && meta2.hasLore()
+                && meta.getDisplayName().equalsIgnoreCase(meta2.getDisplayName())
+                && isArrayEqual(meta.getLore(), meta2.getLore());
     }
 
     /**
-     * Checks if two lists have the same contents
+     * Checks if two lists have the same contents. The second list may contain
+     * additional elements after the contents of the first.
      *
      * @param list  The first list
      * @param list2 The second list
      * @return If the lists are the same
      */
     public static boolean isArrayEqual(List<String> list, List<String> list2) {
-        if (list == null || list2 == null) {
+        if (list == null || list2 == null || list2.size() < list.size()) {
             return false;
         }
-        try {
-            Iterator<String> it = list.iterator();
-            int count = 0;
-            while (it.hasNext()) {
-                String next = it.next();
-                if (!list2.get(count).equalsIgnoreCase(next)) {
-                    return false;
-                }
-                count++;
+        for (int i = 0; i < list.size(); i++) {
+            String next = list2.get(i);
+            if (next == null || !next.equalsIgnoreCase(list.get(i))) {
+                return false;
             }
-            return true;
-        } catch (Exception e) {
-            return false;
         }
+        return true;
     }
 
     /**
-     * Uses fuel from the players inventory.
+     * Uses fuel from the players inventory. While fuel is burning, how much is
+     * left is tracked by the JetpackManager, and the fuel's name and lore are
+     * only rewritten when the percentage shown on them changes.
      *
      * @param player        The player to obtain the item from
      * @param mustBeHolding Should the coal be used from the players hand?
@@ -94,127 +96,127 @@ public class Utils {
      */
     public static boolean useFuel(Player player, boolean mustBeHolding,
                                   double factor) {
-        Material fuel = Material.getMaterial(EasyJetpack.getInstance()
-                .getConfig()
-                .getString("fuel.material", "COAL"));
-        int durability = EasyJetpack.getInstance()
-                .getConfig()
-                .getInt("fuel.durability", -1);
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        Material fuel = settings.getFuelMaterial();
+        int durability = settings.getFuelDurability();
 
         PlayerInventory inventory = player.getInventory();
-
-        boolean isBurning = false;
-        ItemStack foundFuel = null;
-        int fuelSlot = -1;
-
-        // Locate burning fuel first
-        if (mustBeHolding) {
-            // They need to be holding the fuel for it to burn;
-            // check if they are holding it.
-            foundFuel = inventory.getItemInHand();
-            if (foundFuel != null && foundFuel.getType() == fuel
-                    && (durability == -1 || foundFuel.getDurability() == durability)) {
-                // This is a sample of fuel, so we can now toy with it.
-                // Check its metadata for the "% left" name
-                isBurning = (foundFuel.hasItemMeta() && foundFuel.getItemMeta().hasLore() &&
-                        foundFuel.getItemMeta().getLore().get(0).contains("% left"));
-                fuelSlot = inventory.getHeldItemSlot();
-            } else {
-                // What just happened here? This isn't fuel!
-                return false;
-            }
-        } else {
-            // Check for burning fuel everywhere.
-            ItemStack normalFuel = null;
-            int normalFuelIndex = -1;
-
-            for (int i = 0; i < inventory.getSize(); i++) {
-                ItemStack checkItem = inventory.getItem(i);
-                // Check this item for metadata.
-                if (checkItem != null && checkItem.getType() == fuel
-                        && checkItem.hasItemMeta()
-                        && checkItem.getItemMeta().hasLore()
-                        && checkItem.getItemMeta().getLore().get(0).contains("% left")
-                        && (durability == -1 || checkItem.getDurability() == durability)) {
-                    foundFuel = checkItem;
-                    fuelSlot = i;
-                    isBurning = true;
-                    break;
-                } else if (normalFuel == null && checkItem != null && checkItem.getType() == fuel
-                        && (durability == -1 || checkItem.getDurability() == durability)) {
-                    normalFuel = checkItem;
-                    normalFuelIndex = i;
-                }
-            }
-
-            if (foundFuel == null) {
-                // Looks like we didn't find anything. Search for normal fuel.
-
-                if (normalFuel == null) {
-                    // This shouldn't happen...
-                    return false;
-                }
-
-                fuelSlot = normalFuelIndex;
-                foundFuel = normalFuel;
+        FuelLedger ledger = EasyJetpackAPI.getManager().getFuelLedger();
+        FuelIndex fuelIndex = EasyJetpackAPI.getManager().getFuelIndex();
+
+        // Check the fuel that we already know is burning first
+        int fuelSlot = ledger.getBurningSlot(player);
+        ItemStack burningFuel = null;
+        if (fuelSlot != -1 && (!mustBeHolding || fuelSlot == inventory.getHeldItemSlot())) {
+            // Make sure it is still the burning item, and not other fuel which
+            // has been moved into its slot
+            burningFuel = inventory.getItem(fuelSlot);
+            if (burningFuel != null && (burningFuel.getType() != fuel
+                    || (durability != -1 && burningFuel.getDurability() != durability)
+                    || !FuelIndex.isBurning(burningFuel))) {
+                burningFuel = null;
             }
         }
 
         // Fuel for us to respawn in the inventory at the end of the event
         int fuelToGiveBack = 0;
-        // The new burning coal instance to manipulate.
-        ItemStack burningFuel;
+        short fuelDurability = 0;
         // Do we need to spawn this burningFuel when we are done with it? (If it already
         // exists, no)
         boolean spawnBurningFuel = false;
 
-        if (!isBurning) {
-            // Burning + Non-burning fuel doesn't stack. Store it for later.
-            fuelToGiveBack = foundFuel.getAmount() - 1;
-            player.getInventory().remove(foundFuel);
-
-            // Give us a instance to modify.
-            burningFuel = new ItemStack(fuel, 1, foundFuel.getDurability());
-            spawnBurningFuel = true;
-        } else {
-            // We should modify this instance instead.
-            burningFuel = foundFuel;
-        }
+        if (burningFuel == null) {
+            ledger.clear(player);
+
+            boolean isBurning = false;
+            ItemStack foundFuel = null;
+
+            // Locate burning fuel first
+            if (mustBeHolding) {
+                // They need to be holding the fuel for it to burn;
+                // check if they are holding it.
+                foundFuel = inventory.getItemInHand();
+                if (foundFuel != null && foundFuel.getType() == fuel
+                        && (durability == -1 || foundFuel.getDurability() == durability)) {
+                    // This is a sample of fuel, so we can now toy with it.
+                    // Check its metadata for the "% left" name
+                    isBurning = (foundFuel.hasItemMeta() && foundFuel.getItemMeta().hasLore() &&
+                            foundFuel.getItemMeta().getLore().get(0).contains("% left"));
+                    fuelSlot = inventory.getHeldItemSlot();
+                } else {
+                    // What just happened here? This isn't fuel!
+                    return false;
+                }
+            } else {
+                // Prefer fuel which is already burning.
+                fuelSlot = findFuel(player, fuel, durability, true);
+                if (fuelSlot == -1) {
+                    // Looks like we didn't find anything. Search for normal fuel.
+                    fuelSlot = findFuel(player, fuel, durability, false);
+                }
 
-        // Now we need to calculate the fuel usage
-        short fuelUsage;
+                if (fuelSlot == -1) {
+                    // This shouldn't happen...
+                    return false;
+                }
 
-        // If this coal isn't burning, give it a full life.
-        if (!isBurning) {
-            fuelUsage = 100;
-        } else {
-            // We need to dissect this from the metadata.
-            String line = foundFuel.getItemMeta().getLore().get(0);
+                foundFuel = inventory.getItem(fuelSlot);
+                isBurning = FuelIndex.isBurning(foundFuel);
+            }
 
-            fuelUsage = Short.parseShort(ChatColor.stripColor(line.split("%")[0]));
-        }
+            if (!isBurning) {
+                // Burning + Non-burning fuel doesn't stack. Store it for later.
+                fuelToGiveBack = foundFuel.getAmount() - 1;
+                fuelDurability = foundFuel.getDurability();
+                player.getInventory().remove(foundFuel);
 
-        fuelUsage -= (((double) 100) / ((double) 10) / factor);
+                // Give us a instance to modify, with a full life.
+                burningFuel = new ItemStack(fuel, 1, fuelDurability);
+                spawnBurningFuel = true;
+                ledger.start(player, fuelSlot, 100, -1);
 
-        // Compile the new metadata up.
-        List<String> newLore = new ArrayList<String>();
-        newLore.add(ChatColor.RESET + "" + fuelUsage + "% left");
+                // The rest of the stack could end up anywhere
+                fuelIndex.invalidate(player);
+            } else {
+                // We should modify this instance instead, continuing from the
+                // amount shown on it.
+                burningFuel = foundFuel;
+                String line = foundFuel.getItemMeta().getLore().get(0);
+                short shown = Short.parseShort(ChatColor.stripColor(line.split("%")[0]));
+                ledger.start(player, fuelSlot, shown, shown);
+            }
+        }
 
-        // Replace the burning coals lore
-        ItemMeta newMeta = burningFuel.getItemMeta();
-        newMeta.setLore(newLore);
-        newMeta.setDisplayName(ChatColor.RESET + "" + ChatColor.DARK_RED + "Burning "
-                + fuel.name().toLowerCase() + " - " + fuelUsage + "% left");
-        burningFuel.setItemMeta(newMeta);
+        // Fractions of a percent are kept in the ledger, so the item only has to
+        // be rewritten when a whole percent has burned
+        double burned = ((double) 10) / factor;
+        double fuelUsage = ledger.burn(player, burned);
+        ActivityRecorder.recordFuelBurned(player, burned, Math.max(0, fuelUsage));
 
         // If the fuel usage is less then 1, this fuel is extinguished.
         if (fuelUsage < 1) {
+            ledger.clear(player);
+
             // Delete it.
             inventory.setItem(fuelSlot, new ItemStack(Material.AIR, 1));
+            fuelIndex.setSlot(player, fuelSlot, false, false);
 
             // Shuffle their inventory.
             Utils.shuffleCoal(player, mustBeHolding);
         } else {
+            int shown = ledger.takeRender(player);
+            if (shown != -1) {
+                // Replace the burning coals name and lore
+                List<String> newLore = new ArrayList<String>();
+                newLore.add(ChatColor.RESET + "" + shown + "% left");
+
+                ItemMeta newMeta = burningFuel.getItemMeta();
+                newMeta.setLore(newLore);
+                newMeta.setDisplayName(ChatColor.RESET + "" + ChatColor.DARK_RED + "Burning "
+                        + fuel.name().toLowerCase() + " - " + shown + "% left");
+                burningFuel.setItemMeta(newMeta);
+            }
+
             // Do we need to spawn the burningFuel in their inventory?
             if (spawnBurningFuel) {
                 // Spawn it in the respective place.
@@ -229,12 +231,44 @@ public class Utils {
         if (fuelToGiveBack > 0) {
             player.getInventory().addItem(
                     new ItemStack(fuel,
-                            fuelToGiveBack, foundFuel.getDurability()));
+                            fuelToGiveBack, fuelDurability));
         }
 
         return true;
     }
 
+    /**
+     * Finds fuel in a players inventory, using the JetpackManager's index of
+     * where their fuel is. If the index turns out to be out of date, the
+     * inventory is scanned again.
+     *
+     * @param player     The player to search
+     * @param fuel       The fuel material
+     * @param durability The fuel durability, or -1 for any
+     * @param burning    Should only burning fuel be found?
+     * @return The first slot holding fuel, or -1 if there isn't any
+     */
+    private static int findFuel(Player player, Material fuel, int durability, boolean burning) {
+        FuelIndex fuelIndex = EasyJetpackAPI.getManager().getFuelIndex();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            long slots = burning ? fuelIndex.getBurningSlots(player, fuel, durability)
+                    : fuelIndex.getFuelSlots(player, fuel, durability)
+                    & ~fuelIndex.getBurningSlots(player, fuel, durability);
+            if (slots == 0) {
+                return -1;
+            }
+
+            int slot = Long.numberOfTrailingZeros(slots);
+            ItemStack item = player.getInventory().getItem(slot);
+            if (item != null && item.getType() == fuel
+                    && (durability == -1 || item.getDurability() == durability)) {
+                return slot;
+            }
+            fuelIndex.invalidate(player);
+        }
+        return -1;
+    }
+
     /**
      * Shuffles fuel around in the players inventory.
      *
@@ -242,35 +276,30 @@ public class Utils {
      * @param mustBeHolding Should the coal end up in the players hand?
      */
     public static void shuffleCoal(Player player, boolean mustBeHolding) {
-        Material fuelMaterial = Material.getMaterial(EasyJetpack.getInstance().getConfig()
-                .getString("fuel.material", "COAL"));
-        int durability = EasyJetpack.getInstance()
-                .getConfig()
-                .getInt("fuel.durability", -1);
-
-        // First, make sure they are holding fuel.
-        if (player.getInventory().contains(fuelMaterial)) {
-            int position = -1;
-            for (int i = 0; i < player.getInventory().getSize(); i++) {
-                ItemStack test = player.getInventory().getItem(i);
-                if (test != null && test.getType() == fuelMaterial
-                        && (durability == -1 || test.getDurability() == durability)) {
-                    position = i;
-                }
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        Material fuelMaterial = settings.getFuelMaterial();
+        int durability = settings.getFuelDurability();
+
+        // This only happens once per item of fuel, so rescan their inventory
+        // rather than trusting the index.
+        FuelIndex fuelIndex = EasyJetpackAPI.getManager().getFuelIndex();
+        fuelIndex.invalidate(player);
+        long slots = fuelIndex.getFuelSlots(player, fuelMaterial, durability);
+
+        // Move the last fuel in their inventory.
+        if (slots != 0) {
+            int position = 63 - Long.numberOfLeadingZeros(slots);
+            ItemStack stack = player.getInventory().getItem(position);
+            player.getInventory().removeItem(stack);
+
+            if (mustBeHolding) {
+                player.setItemInHand(stack);
+            } else {
+                player.getInventory().addItem(stack);
             }
 
-            if (position != -1) {
-                ItemStack stack = player.getInventory().getItem(position);
-                player.getInventory().removeItem(stack);
-
-                if (mustBeHolding) {
-                    player.setItemInHand(stack);
-                } else {
-                    player.getInventory().addItem(stack);
-                }
-
-                return;
-            }
+            fuelIndex.invalidate(player);
+            return;
         }
 
         player.sendMessage(ChatColor.RED
@@ -305,11 +334,17 @@ public class Utils {
 
     /**
      * Sets the specified slot to the new item, using slots from Jetpack.Slot.
+     * The JetpackManager's record of what the player is wearing is only
+     * invalidated if the item is a different one, rather than the same item
+     * with, for example, more damage.
      *
      * @param player The player who will be modified
      * @param slot   The slot that will be modified
      */
     public static void setSlot(Player player, Slot slot, ItemStack is) {
+        if (!isItemStackEqual(getSlot(player, slot), is)) {
+            EasyJetpackAPI.getManager().invalidateEquipment(player);
+        }
         switch (slot) {
             case HELD_ITEM:
                 player.setItemInHand(is);
@@ -342,8 +377,10 @@ public class Utils {
     public static void damage(Player player, Slot slot, int maximum) {
         ItemStack jetpack = Utils.getSlot(player, slot);
         jetpack.setDurability((short) (jetpack.getDurability() + 1));
+        boolean broken = jetpack.getDurability() > maximum;
+        ActivityRecorder.recordDurabilityDamaged(player, slot, jetpack.getDurability(), maximum, broken);
 
-        if (jetpack.getDurability() > maximum) {
+        if (broken) {
             player.sendMessage(ChatColor.RED + "Your "
                     + jetpack.getItemMeta().getDisplayName() + ChatColor.RESET
                     + "" + ChatColor.RED + " is broken!");
@@ -362,7 +399,10 @@ public class Utils {
      * @param maxY Maximum speed on the Y axis
      * @param maxZ Maximum speed on the Z axis
      * @return The new vector.
+     * @deprecated Use fly(), which clamps both directions on the Y axis and
+     * doesn't allocate
      */
+    @Deprecated
     public static Vector addVector(Player p, Vector v, double maxX, double maxY, double maxZ) {
         Vector curr = p.getVelocity();
         Vector added = curr.add(v);
@@ -385,6 +425,51 @@ public class Utils {
         return added;
     }
 
+    /**
+     * Moves a player around, using the flight model in FlightPhysics and their
+     * reusable flight state. The velocity isn't sent if it is the same as the
+     * last one sent and the player is still moving at it, as every velocity
+     * sent is a packet to the player and everyone who can see them.
+     *
+     * @param p      The player to move
+     * @param params How the Jetpack flies
+     */
+    public static void fly(Player p, FlightPhysics.Params params) {
+        JetpackManager manager = EasyJetpackAPI.getManager();
+        FlightPhysics.State state = manager.getFlightState(p);
+
+        // getVelocity() always creates a new Vector, so read it once
+        Vector current = p.getVelocity();
+        state.setVelocity(current.getX(), current.getY(), current.getZ());
+        p.getLocation(flightLocation);
+
+        FlightPhysics.step(params, state, flightLocation.getYaw(), flightLocation.getPitch());
+
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        long tick = manager.getCurrentTick();
+        if (!state.needsSending(current.getX(), current.getY(), current.getZ(), tick,
+                settings.getVelocityEpsilon(), settings.getVelocityRefreshTicks())) {
+            return;
+        }
+        state.markSent(tick);
+
+        flightVelocity.setX(state.getX());
+        flightVelocity.setY(state.getY());
+        flightVelocity.setZ(state.getZ());
+        p.setVelocity(flightVelocity);
+    }
+
+    /**
+     * Checks if a item is the configured fuel. This respects durability, if it
+     * was set.
+     *
+     * @param item The item to check
+     * @return If the item is fuel
+     */
+    public static boolean isFuel(ItemStack item) {
+        return EasyJetpack.getInstance().getSettings().isFuel(item);
+    }
+
     /**
      * Checks if a player currently has fuel in their inventory. This respects
      * durability, if it was set.
@@ -393,19 +478,14 @@ public class Utils {
      * @return If fuel was found.
      */
     public static boolean playerHasFuel(Player player) {
-        Material fuelMaterial = Material.getMaterial(EasyJetpack.getInstance().getConfig()
-                .getString("fuel.material", "COAL"));
-        int durability = EasyJetpack.getInstance()
-                .getConfig()
-                .getInt("fuel.durability", -1);
-
-        for (int i = 0; i < player.getInventory().getSize(); i++) {
-            ItemStack test = player.getInventory().getItem(i);
-            if (test != null && test.getType() == fuelMaterial &&
-                    (durability == -1 ||  test.getDurability() == durability)) {
-                return true;
-            }
-        }
-        return false;
+        Settings settings = EasyJetpack.getInstance().getSettings();
+        Material fuelMaterial = settings.getFuelMaterial();
+        int durability = settings.getFuelDurability();
+
+        // Having no fuel is cached too, until their inventory next changes, so
+        // players flying without fuel don't have their inventory scanned on
+        // every check
+        return EasyJetpackAPI.getManager().getFuelIndex()
+                .getFuelSlots(player, fuelMaterial, durability) != 0;
     }
 }
@@ -1,33 +1,49 @@
 package net.jselby.ej;
 
+import net.jselby.ej.api.EasyJetpackAPI;
 import org.bukkit.Effect;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 public class VisualCandy {
+    private static final EffectBroadcaster broadcaster = new EffectBroadcaster();
+
     /**
      * Creates a 'Jetpack' effect at the player's location
      *
      * @param player The player to launch the effect from
      */
     public static void jetpackEffect(Player player) {
-        playEffect(Effect.SMOKE, player.getLocation(), 256);
-        playEffect(Effect.SMOKE, player.getLocation(), 256);
-        playEffect(Effect.GHAST_SHOOT, player.getLocation(), 1);
+        // Effects are shown less often, and with less detail, when the
+        // server is falling behind.
+        if (!broadcaster.shouldEmit(player)) {
+            return;
+        }
+
+        int level = broadcaster.getLevel();
+        Location location = player.getLocation();
+        playEffect(Effect.SMOKE, location, 256);
+        if (level == EffectBroadcaster.LEVEL_FULL) {
+            playEffect(Effect.SMOKE, location, 256);
+        }
+        if (level != EffectBroadcaster.LEVEL_MINIMAL) {
+            playEffect(Effect.GHAST_SHOOT, location, 1);
+        }
     }
 
     /**
-     * Plays the respective effect at the respective location
+     * Plays the respective effect at the respective location, to the players
+     * who are close enough to see it
      *
      * @param e   The effect to play
      * @param l   The location of the effect
      * @param num How many effects should be emitted
      */
-    @SuppressWarnings("deprecation")
     public static void playEffect(Effect e, Location l, int num) {
-        for (int i = 0; i < EasyJetpack.getInstance().getServer()
-                .getOnlinePlayers().length; i++)
-            EasyJetpack.getInstance().getServer().getOnlinePlayers()[i]
-                    .playEffect(l, e, num);
+        long start = System.nanoTime();
+        broadcaster.play(e, l, num,
+                EasyJetpack.getInstance().getSettings().getEffectViewRadius());
+        EasyJetpackAPI.getManager().getPerformanceMonitor().getCurrent()[PerformanceMonitor.EFFECTS]
+                .record(System.nanoTime() - start);
     }
 }
@@ -7,11 +7,11 @@ package net.jselby.ej.api;
  */
 public enum FlightTypes {
     /**
-     * Jetpack toggle via creative mode
-     *
-     * @Deprecated Not implemented yet
+     * Jetpack toggle via creative mode flight. Pressing crouch lets the
+     * player fly as they would in creative mode, until they land or take the
+     * Jetpack off. While they are flying, this event is called once every
+     * second they spend in the air, to check and use fuel.
      */
-    @Deprecated
     CREATIVE_TOGGLE,
     /**
      * Jetpack toggle via pressing crouch
@@ -1,6 +1,7 @@
 package net.jselby.ej.api;
 
 import net.jselby.ej.EasyJetpack;
+import net.jselby.ej.Settings;
 import net.jselby.ej.Utils;
 import net.jselby.ej.impl.CraftingRecipe;
 import org.bukkit.Material;
@@ -164,6 +165,16 @@ public abstract class Jetpack {
         return EasyJetpack.getInstance().getConfig();
     }
 
+    /**
+     * A simple method to return the compiled configuration from the main
+     * class. This is cheaper to read from than getConfig().
+     *
+     * @return The current Settings
+     */
+    public Settings getSettings() {
+        return EasyJetpack.getInstance().getSettings();
+    }
+
     /**
      * Checks if repairing items is allowed
      */
@@ -178,6 +189,62 @@ public abstract class Jetpack {
         HELMET, CHESTPLATE, LEGGINGS, BOOTS, HELD_ITEM
     }
 
+    /**
+     * Defines how many times a second each player can activate this Jetpack
+     * by crouching, once they have used up getActivationBurst(). Activations
+     * over the limit are dropped before any event is created. This is read
+     * when the Jetpack is registered, and when the configuration is reloaded.
+     *
+     * @return A number of activations, or 0 for no limit
+     */
+    public double getActivationRate() {
+        return 0;
+    }
+
+    /**
+     * Defines how many activations each player can save up, and use in quick
+     * succession. Only used if getActivationRate() is above 0.
+     *
+     * @return A number of activations
+     */
+    public int getActivationBurst() {
+        return 1;
+    }
+
+    /**
+     * Defines how fast players fly with this Jetpack, as with
+     * Player.setFlySpeed(). Only used by creative toggle Jetpacks.
+     *
+     * @return A speed, from -1 to 1
+     */
+    public float getFlySpeed() {
+        return 0.1F;
+    }
+
+    /**
+     * Defines how many ticks apart this Jetpack is called while a constant
+     * crouch flight is running. Between calls, the player keeps moving as
+     * their client simulates them, and no fuel is used. While the player is
+     * on the ground, it is called every tick, so they can take off.
+     *
+     * @return A number of ticks, where 1 calls the Jetpack every tick
+     */
+    public int getImpulseInterval() {
+        return 1;
+    }
+
+    /**
+     * Defines if players glide, as they would with a elytra, while flying
+     * with this Jetpack in a constant crouch flight. The glide is started as
+     * soon as the player is in the air, and kept going until the flight stops
+     * or the player lands, even though they aren't wearing a elytra.
+     *
+     * @return If this Jetpack glides
+     */
+    public boolean isGlideAssisted() {
+        return false;
+    }
+
     /**
      * Keep calling this jetpack until it runs out of fuel.
      *
@@ -1,6 +1,5 @@
 package net.jselby.ej.api;
 
-import net.jselby.ej.Utils;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
@@ -68,9 +67,17 @@ public class JetpackEvent implements Cancellable {
      * @return If the player is wearing the Jetpack, or false if the Jetpack doesn't exist.
      */
     public boolean isPlayerWearing(Class<? extends Jetpack> jetpackClass) {
-        Jetpack pack = EasyJetpackAPI.getManager().getJetpackByClass(jetpackClass);
-        return pack != null && Utils.isItemStackEqual(getPlayer()
-                .getInventory().getChestplate(), pack.getItem());
+        return EasyJetpackAPI.getManager().isPlayerWearing(getPlayer(), jetpackClass);
+    }
+
+    /**
+     * Finds the Jetpack that the player has in a certain slot.
+     *
+     * @param slot The slot to check
+     * @return The Jetpack in that slot, or null if there isn't one
+     */
+    public Jetpack getEquippedJetpack(Jetpack.Slot slot) {
+        return EasyJetpackAPI.getManager().getEquippedJetpack(getPlayer(), slot);
     }
 
     /**
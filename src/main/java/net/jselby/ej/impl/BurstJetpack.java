@@ -1,5 +1,7 @@
 package net.jselby.ej.impl;
 
+import net.jselby.ej.FlightPhysics;
+import net.jselby.ej.Settings;
 import net.jselby.ej.Utils;
 import net.jselby.ej.VisualCandy;
 import net.jselby.ej.api.FlightTypes;
@@ -7,7 +9,6 @@ import net.jselby.ej.api.Jetpack;
 import net.jselby.ej.api.JetpackEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.util.Vector;
 
 /**
  * A Jetpack built for speed. Multiple bursts are allowed by the Jetpack
@@ -15,6 +16,13 @@ import org.bukkit.util.Vector;
  * @author James
  */
 public class BurstJetpack extends Jetpack {
+    private static final FlightPhysics.Params FLIGHT = FlightPhysics.Params.builder()
+            .thrust(0.5D).boostLift(0.3D, 1.3D, 10).clamp(0.7, 0.6, Double.MAX_VALUE).unitSpeed()
+            .build();
+    // While gliding, each thrust pushes the player along where they are looking,
+    // keeping the speed they already had, much like a firework rocket
+    private static final FlightPhysics.Params GLIDE = FlightPhysics.Params.builder()
+            .thrust(0.6D).lift(0.1D).clamp(1.6, 0.8, Double.MAX_VALUE).build();
 
     @Override
     public String getName() {
@@ -31,41 +39,30 @@ public class BurstJetpack extends Jetpack {
 
     @Override
     public Material getMaterial() {
-        return Material.getMaterial(getConfig().getString(
-                "jetpacks.burst.material", "GOLD_CHESTPLATE"));
+        return getSettings().getBurst().getMaterial();
     }
 
     @Override
     public void onFlyEvent(JetpackEvent event) {
-        Vector dir = event.getPlayer().getLocation().getDirection();
-        double y = event.getPlayer().getVelocity().getY();
-        if (y < 0.3D) {
-            y = 0.3D;
-        }
-        y *= 1.3D;
-        if (y > 10) {
-            y = 10;
-        }
-        event.getPlayer().setVelocity(
-                Utils.addVector(event.getPlayer(), new Vector(
-                                dir.getX() * 0.5D, y, dir.getZ() * 0.5D), 0.7, 0.6,
-                        0.7));
+        // While gliding, the flight session keeps the player gliding
+        Utils.fly(event.getPlayer(), getSettings().getBurst().isGlide() ? GLIDE : FLIGHT);
 
         VisualCandy.jetpackEffect(event.getPlayer());
     }
 
     @Override
     public void onFuelUsageEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
-            Utils.useFuel(event.getPlayer(), false, 4);
+        if (getSettings().isFuelEnabled()) {
+            // 3% each use, as the whole percent rounding used to burn
+            Utils.useFuel(event.getPlayer(), false, 10D / 3);
         }
-        if (getConfig().getBoolean("jetpacks.burst.durability", true))
+        if (getSettings().getBurst().isDurability())
             Utils.damage(event.getPlayer(), getSlot(), 250);
     }
 
     @Override
     public boolean onFuelCheckEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
+        if (getSettings().isFuelEnabled()) {
 
             boolean containsCoal = Utils.playerHasFuel(event.getPlayer());
             if (!containsCoal)
@@ -81,9 +78,20 @@ public class BurstJetpack extends Jetpack {
         return FlightTypes.CROUCH_CONSTANT;
     }
 
+    @Override
+    public int getImpulseInterval() {
+        Settings.JetpackSettings settings = getSettings().getBurst();
+        return settings.isGlide() ? settings.getGlideCadence() : 1;
+    }
+
+    @Override
+    public boolean isGlideAssisted() {
+        return getSettings().getBurst().isGlide();
+    }
+
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.burst.craftable", true)) {
+        if (!getSettings().getBurst().isCraftable()) {
             return null;
         }
         CraftingRecipe recipe = new CraftingRecipe(getItem());
@@ -113,6 +121,6 @@ public class BurstJetpack extends Jetpack {
 
     @Override
     public boolean isRepairingDisabled() {
-        return getConfig().getBoolean("jetpacks.burst.antianvil", true);
+        return getSettings().getBurst().isAntiAnvil();
     }
 }
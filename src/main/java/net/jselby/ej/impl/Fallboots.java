@@ -33,16 +33,16 @@ public class Fallboots extends Jetpack {
 
     @Override
     public Material getMaterial() {
-        return Material.getMaterial(getConfig().getString(
-                "jetpacks.boots.material", "LEATHER_BOOTS"));
+        return getSettings().getBoots().getMaterial();
     }
 
     @Override
     public void onFlyEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("jetpacks.boots.jetpackrequired", false)) {
-            if (!event.isPlayerWearing(TraditionalJetpack.class)
-                    && !event.isPlayerWearing(TeleportJetpack.class)
-                    && !event.isPlayerWearing(BurstJetpack.class)) {
+        if (getSettings().getBoots().isJetpackRequired()) {
+            Jetpack chestplate = event.getEquippedJetpack(Slot.CHESTPLATE);
+            if (!(chestplate instanceof TraditionalJetpack)
+                    && !(chestplate instanceof TeleportJetpack)
+                    && !(chestplate instanceof BurstJetpack)) {
                 return;
             }
         }
@@ -65,7 +65,7 @@ public class Fallboots extends Jetpack {
 
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.boots.craftable", true)) {
+        if (!getSettings().getBoots().isCraftable()) {
             return null;
         }
         CraftingRecipe recipe = new CraftingRecipe(getItem());
@@ -82,6 +82,6 @@ public class Fallboots extends Jetpack {
 
     @Override
     public boolean isRepairingDisabled() {
-        return getConfig().getBoolean("jetpacks.boots.antianvil", true);
+        return getSettings().getBoots().isAntiAnvil();
     }
 }
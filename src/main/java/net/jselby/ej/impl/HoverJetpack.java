@@ -1,5 +1,6 @@
 package net.jselby.ej.impl;
 
+import net.jselby.ej.FlightPhysics;
 import net.jselby.ej.Utils;
 import net.jselby.ej.VisualCandy;
 import net.jselby.ej.api.EasyJetpackAPI;
@@ -8,7 +9,6 @@ import net.jselby.ej.api.Jetpack;
 import net.jselby.ej.api.JetpackEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.util.Vector;
 
 /**
  * A hovering jetpack - similar to the burst one, but gives
@@ -17,6 +17,21 @@ import org.bukkit.util.Vector;
  * @author j_selby
  */
 public class HoverJetpack extends Jetpack {
+    // Holding crouch climbs straight up
+    private static final FlightPhysics.Params CLIMB = FlightPhysics.Params.builder()
+            .thrust(0.5D).boostLift(0.3D, 1.3D, 10).clamp(0, 0.1, Double.MAX_VALUE).unitSpeed()
+            .build();
+    // Otherwise, the player stays where they are
+    private static final FlightPhysics.Params HOLD = FlightPhysics.Params.builder()
+            .clamp(0, 0, 0).hoverHold().build();
+    // Rightclicking the controller goes down
+    private static final FlightPhysics.Params DESCEND = FlightPhysics.Params.builder()
+            .lift(-0.4D).clamp(0, 0.1, Double.MAX_VALUE).unitSpeed().build();
+    // Leftclicking the controller goes forward
+    private static final FlightPhysics.Params FORWARD = FlightPhysics.Params.builder()
+            .thrust(0.5D).boostLift(0.3D, 1.3D, 10).clamp(0.4, 0, Double.MAX_VALUE).unitSpeed()
+            .build();
+
     @Override
     public String getName() {
         return ChatColor.RESET + "" + ChatColor.BLUE + "Hover Jetpack";
@@ -40,68 +55,43 @@ public class HoverJetpack extends Jetpack {
 
     @Override
     public Material getMaterial() {
-        return Material.getMaterial(getConfig().getString(
-                "jetpacks.teleport.material", "CHAINMAIL_CHESTPLATE"));
+        // The hover jetpack has always shared the teleport jetpack's material
+        return getSettings().getTeleport().getMaterial();
     }
 
     @Override
     public void onFlyEvent(JetpackEvent event) {
-        Vector dir = event.getPlayer().getLocation().getDirection();
-        double y = event.getPlayer().getVelocity().getY();
-        if (y < 0.3D) {
-            y = 0.3D;
-        }
-        y *= 1.3D;
-        if (y > 10) {
-            y = 10;
+        // The player's client moves them while they are flying natively
+        if (event.getType() == FlightTypes.CREATIVE_TOGGLE) {
+            VisualCandy.jetpackEffect(event.getPlayer());
+            return;
         }
 
-        double verticalSpeed = 0.1;
-        double horSpeed = 0.0;
-        double multiplier = 0.5D;
-        boolean fixFly = false;
+        FlightPhysics.Params flight = CLIMB;
         if (event.getType() == FlightTypes.TIMER) {
-            verticalSpeed = 0;
-            multiplier = 0;
-            horSpeed = 0;
-            fixFly = true;
+            flight = HOLD;
 
             // Check if they are using the fly controller
-            if (HoverJetpackController.playersToTrigger.containsKey(event.getPlayer().getName())) {
-                fixFly = false;
-                // They are!
-                if (HoverJetpackController.playersToTrigger
-                        .get(event.getPlayer().getName())) {
-                    // Rightclick
-                    verticalSpeed = 0.1;
-                    y = -0.4;
-                } else {
-                    // Leftclick
-                    multiplier = 0.5D;
-                    horSpeed = 0.4;
-                }
-
-                HoverJetpackController.playersToTrigger.remove(event.getPlayer().getName());
+            byte input = EasyJetpackAPI.getManager().takeControllerInput(event.getPlayer());
+            if (input == HoverJetpackController.INPUT_RIGHT_CLICK) {
+                flight = DESCEND;
+            } else if (input == HoverJetpackController.INPUT_LEFT_CLICK) {
+                flight = FORWARD;
             }
         }
 
-        Vector vector = Utils.addVector(event.getPlayer(), new Vector(
-                        dir.getX() * multiplier, y, dir.getZ() * multiplier),
-                horSpeed, verticalSpeed,
-                horSpeed);
-        if (fixFly) {
-            vector.setY(0);
-        }
-        event.getPlayer().setVelocity(
-                vector);
+        Utils.fly(event.getPlayer(), flight);
 
         VisualCandy.jetpackEffect(event.getPlayer());
     }
 
     @Override
     public void onFuelUsageEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
-            Utils.useFuel(event.getPlayer(), false, 24);
+        if (getSettings().isFuelEnabled()) {
+            // Timer events burn 1% each, 20% a second. Natively, each event
+            // pays for a second of flight, so burns the same 20% at once.
+            Utils.useFuel(event.getPlayer(), false,
+                    event.getType() == FlightTypes.CREATIVE_TOGGLE ? 0.5 : 10);
         }
     }
 
@@ -119,7 +109,7 @@ public class HoverJetpack extends Jetpack {
         }
 
 
-        if (getConfig().getBoolean("fuel.enabled", true)) {
+        if (getSettings().isFuelEnabled()) {
 
             boolean containsCoal = Utils.playerHasFuel(event.getPlayer());
             if (!containsCoal)
@@ -132,12 +122,18 @@ public class HoverJetpack extends Jetpack {
 
     @Override
     public FlightTypes getMovementType() {
-        return FlightTypes.CROUCH_CONSTANT;
+        return getSettings().getHover().isNativeFlight()
+                ? FlightTypes.CREATIVE_TOGGLE : FlightTypes.CROUCH_CONSTANT;
+    }
+
+    @Override
+    public float getFlySpeed() {
+        return getSettings().getHover().getFlySpeed();
     }
 
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.hover.craftable", true)) {
+        if (!getSettings().getHover().isCraftable()) {
             return null;
         }
         CraftingRecipe recipe = new CraftingRecipe(getItem());
@@ -9,10 +9,6 @@ import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
-import org.bukkit.util.Vector;
-
-import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * The hover jetpack controller.
@@ -20,7 +16,14 @@ import java.util.HashMap;
  * @author j_Selby
  */
 public class HoverJetpackController extends Jetpack {
-    public static HashMap<String, Boolean> playersToTrigger = new HashMap<String, Boolean>();
+    /**
+     * Controller input meaning the player right clicked, to go down
+     */
+    public static final byte INPUT_RIGHT_CLICK = 1;
+    /**
+     * Controller input meaning the player left clicked, to go forward
+     */
+    public static final byte INPUT_LEFT_CLICK = 2;
 
     @Override
     public String getName() {
@@ -53,7 +56,8 @@ public class HoverJetpackController extends Jetpack {
                 = ((PlayerInteractEvent) event.getBaseEvent()).getAction();
         boolean rightClick = (action == Action.RIGHT_CLICK_AIR || action == Action.RIGHT_CLICK_BLOCK);
 
-        playersToTrigger.put(event.getPlayer().getName(), rightClick);
+        EasyJetpackAPI.getManager().setControllerInput(event.getPlayer(),
+                rightClick ? INPUT_RIGHT_CLICK : INPUT_LEFT_CLICK);
     }
 
     @Override
@@ -63,7 +67,7 @@ public class HoverJetpackController extends Jetpack {
 
     @Override
     public boolean onFuelCheckEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)
+        if (getSettings().isFuelEnabled()
                 && !Utils.playerHasFuel(event.getPlayer())) {
             return false;
         }
@@ -78,7 +82,7 @@ public class HoverJetpackController extends Jetpack {
 
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.hover.craftable", true)) {
+        if (!getSettings().getHover().isCraftable()) {
             return null;
         }
         CraftingRecipe recipe = new CraftingRecipe(getItem());
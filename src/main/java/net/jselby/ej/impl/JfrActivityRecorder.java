@@ -0,0 +1,195 @@
+package net.jselby.ej.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Timespan;
+import net.jselby.ej.ActivityRecorder;
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.Jetpack;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * Records Jetpack activity as Java Flight Recorder events. This is only
+ * loaded by ActivityRecorder once it has checked that the JVM has Flight
+ * Recorder. Each event is only filled in if it is enabled in the running
+ * recording, so while nothing is recording, each call costs a single check.
+ *
+ * @author James
+ */
+public class JfrActivityRecorder extends ActivityRecorder {
+
+    @Override
+    public void dispatch(Player player, FlightTypes type, Jetpack jetpack, boolean result) {
+        DispatchEvent event = new DispatchEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.type = type.name();
+            event.jetpack = jetpack == null ? null : jetpack.getGiveName();
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void fuelBurned(Player player, double burned, double remaining) {
+        FuelEvent event = new FuelEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.burned = burned / 100;
+            event.remaining = remaining / 100;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void durabilityDamaged(Player player, Jetpack.Slot slot, int durability,
+                                  int maximum, boolean broken) {
+        DurabilityEvent event = new DurabilityEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.slot = slot.name();
+            event.durability = durability;
+            event.maximum = maximum;
+            event.broken = broken;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void teleported(Player player, Location from, Location to) {
+        TeleportEvent event = new TeleportEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.world = to.getWorld() == null ? null : to.getWorld().getName();
+            event.fromX = from.getX();
+            event.fromY = from.getY();
+            event.fromZ = from.getZ();
+            event.toX = to.getX();
+            event.toY = to.getY();
+            event.toZ = to.getZ();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void sessionStarted(Player player, Jetpack jetpack) {
+        SessionStartEvent event = new SessionStartEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.jetpack = jetpack.getGiveName();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void sessionStopped(Player player, Jetpack jetpack, long ticks) {
+        SessionStopEvent event = new SessionStopEvent();
+        if (event.isEnabled()) {
+            event.player = player.getName();
+            event.jetpack = jetpack.getGiveName();
+            event.ticks = ticks;
+            event.flightTime = ticks * 50;
+            event.commit();
+        }
+    }
+
+    @Name("net.jselby.ej.Dispatch")
+    @Label("Jetpack Dispatch")
+    @Category({"EasyJetpack"})
+    @Description("A event was passed to the Jetpack the player is wearing")
+    static class DispatchEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Flight Type")
+        String type;
+        @Label("Jetpack")
+        @Description("The give name of the Jetpack which handled the event, if any did")
+        String jetpack;
+        @Label("Succeeded")
+        boolean result;
+    }
+
+    @Name("net.jselby.ej.Fuel")
+    @Label("Jetpack Fuel Burned")
+    @Category({"EasyJetpack"})
+    static class FuelEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Burned")
+        @Percentage
+        double burned;
+        @Label("Remaining")
+        @Description("How much of the burning item is left")
+        @Percentage
+        double remaining;
+    }
+
+    @Name("net.jselby.ej.Durability")
+    @Label("Jetpack Damaged")
+    @Category({"EasyJetpack"})
+    static class DurabilityEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Slot")
+        String slot;
+        @Label("Durability")
+        int durability;
+        @Label("Maximum")
+        int maximum;
+        @Label("Broken")
+        boolean broken;
+    }
+
+    @Name("net.jselby.ej.Teleport")
+    @Label("Jetpack Teleport")
+    @Category({"EasyJetpack"})
+    static class TeleportEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("World")
+        String world;
+        @Label("From X")
+        double fromX;
+        @Label("From Y")
+        double fromY;
+        @Label("From Z")
+        double fromZ;
+        @Label("To X")
+        double toX;
+        @Label("To Y")
+        double toY;
+        @Label("To Z")
+        double toZ;
+    }
+
+    @Name("net.jselby.ej.SessionStart")
+    @Label("Jetpack Flight Started")
+    @Category({"EasyJetpack"})
+    static class SessionStartEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Jetpack")
+        String jetpack;
+    }
+
+    @Name("net.jselby.ej.SessionStop")
+    @Label("Jetpack Flight Stopped")
+    @Category({"EasyJetpack"})
+    static class SessionStopEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Jetpack")
+        String jetpack;
+        @Label("Ticks")
+        long ticks;
+        @Label("Flight Time")
+        @Description("How long the flight lasted, at 20 ticks per second")
+        @Timespan(Timespan.MILLISECONDS)
+        long flightTime;
+    }
+}
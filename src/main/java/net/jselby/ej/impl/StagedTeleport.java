@@ -0,0 +1,236 @@
+package net.jselby.ej.impl;
+
+import net.jselby.ej.ActivityRecorder;
+import net.jselby.ej.CheatPluginAdapter;
+import net.jselby.ej.EasyJetpack;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * A single use of the Teleportation Jetpack, which is worked out over a few
+ * ticks. The ray is traced on a worker, and the player is moved on a later
+ * tick. The Jetpack's fuel and durability are only taken just before the
+ * player is moved, so a teleport that finds nowhere to land, or times out,
+ * costs nothing.
+ * <p/>
+ * When the teleport is staged, no chunk is loaded while the player is being
+ * moved. If the ray runs into a chunk that isn't loaded, that chunk is
+ * requested, and the ray is traced again once it has loaded; the destination
+ * chunk is also loaded before the player is moved.
+ */
+class StagedTeleport {
+    /**
+     * A load callback which does nothing, as chunks are checked every tick
+     */
+    private static final InvocationHandler IGNORE = new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            } else if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("toString")) {
+                return "EasyJetpack chunk request";
+            }
+            return null;
+        }
+    };
+
+    private static boolean searched;
+    private static Method asyncLoad;
+
+    private final TeleportJetpack jetpack;
+    private final Player player;
+    private final Location eye;
+    private final boolean staged;
+    private final long deadline;
+    private final Plugin plugin = EasyJetpack.getInstance();
+    private TeleportRaycast ray;
+
+    /**
+     * Creates a teleport for a player, from where they are looking now
+     *
+     * @param jetpack       The Jetpack which was used
+     * @param player        The player who used it
+     * @param staged        Should chunks be loaded before the teleport
+     *                      happens?
+     * @param timeoutMillis How long the teleport can take before it is given
+     *                      up on
+     */
+    StagedTeleport(TeleportJetpack jetpack, Player player, boolean staged, long timeoutMillis) {
+        this.jetpack = jetpack;
+        this.player = player;
+        this.eye = player.getEyeLocation();
+        this.staged = staged;
+        this.deadline = System.nanoTime() + timeoutMillis * 1000000L;
+    }
+
+    /**
+     * Starts working out where the player will land. This must be called on
+     * the server thread.
+     */
+    void start() {
+        // The chunks are copied now, and searched on a worker, so finding the
+        // target never holds up the server.
+        final TeleportRaycast traced = TeleportRaycast.capture(eye, TeleportJetpack.RANGE);
+        ray = traced;
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+            @Override
+            public void run() {
+                traced.trace();
+                Bukkit.getScheduler().runTask(plugin, new Runnable() {
+                    @Override
+                    public void run() {
+                        onTraced();
+                    }
+                });
+            }
+        });
+    }
+
+    private void onTraced() {
+        if (!isValid()) {
+            return;
+        }
+
+        if (staged && ray.needsChunk()) {
+            waitForChunk(ray.getMissingX(), ray.getMissingZ(), false, true);
+        } else if (ray.getLanding(0, 0) == null) {
+            player.sendMessage(ChatColor.RED + "There's nowhere safe to land there!");
+            jetpack.finished(player);
+        } else if (staged && !ray.getWorld().isChunkLoaded(ray.getLandingChunkX(),
+                ray.getLandingChunkZ())) {
+            waitForChunk(ray.getLandingChunkX(), ray.getLandingChunkZ(), true, true);
+        } else {
+            teleport();
+        }
+    }
+
+    /**
+     * Waits for a chunk to load, checking once a tick. The chunk is requested
+     * on the first tick.
+     *
+     * @param x           The chunk's X coordinate
+     * @param z           The chunk's Z coordinate
+     * @param destination Is this the chunk the player will land in? If not,
+     *                    the ray is traced again once it has loaded.
+     * @param request     Should the chunk be requested?
+     */
+    private void waitForChunk(final int x, final int z, final boolean destination, final boolean request) {
+        Bukkit.getScheduler().runTaskLater(plugin, new Runnable() {
+            @Override
+            public void run() {
+                if (!isValid()) {
+                    return;
+                }
+
+                World world = ray.getWorld();
+                if (request && !requestChunk(world, x, z)) {
+                    player.sendMessage(ChatColor.RED + "There's nowhere safe to land there!");
+                    jetpack.finished(player);
+                } else if (!world.isChunkLoaded(x, z)) {
+                    waitForChunk(x, z, destination, false);
+                } else if (destination) {
+                    teleport();
+                } else {
+                    start();
+                }
+            }
+        }, 1);
+    }
+
+    private void teleport() {
+        if (!jetpack.charge(player)) {
+            jetpack.finished(player);
+            return;
+        }
+
+        Location from = player.getLocation();
+        Location to = ray.getLanding(from.getYaw(), from.getPitch());
+        CheatPluginAdapter.leaseException(player, CheatPluginAdapter.Type.NOCLIP);
+        player.teleport(to);
+        ActivityRecorder.recordTeleport(player, from, to);
+        jetpack.finished(player);
+    }
+
+    /**
+     * Checks if the teleport should carry on. Teleports which have taken too
+     * long, or whose player has left or changed worlds, are finished.
+     *
+     * @return If the teleport is still going
+     */
+    private boolean isValid() {
+        if (!player.isOnline() || player.getWorld() != ray.getWorld()) {
+            jetpack.finished(player);
+            return false;
+        }
+        if (System.nanoTime() - deadline > 0) {
+            player.sendMessage(ChatColor.RED + "Your teleport took too long, and was cancelled.");
+            jetpack.finished(player);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Asks the server to load a chunk. Servers which can load chunks
+     * asynchronously are asked to; otherwise, the chunk is loaded now, on a
+     * tick of its own rather than during the teleport. Chunks which have
+     * never been generated aren't generated.
+     *
+     * @param world The world the chunk is in
+     * @param x     The chunk's X coordinate
+     * @param z     The chunk's Z coordinate
+     * @return False if the chunk can't be loaded
+     */
+    private static boolean requestChunk(World world, int x, int z) {
+        Method method = getAsyncLoad();
+        if (method != null) {
+            try {
+                if (method.getParameterTypes().length == 2) {
+                    method.invoke(world, x, z);
+                } else {
+                    method.invoke(world, x, z, Proxy.newProxyInstance(method.getParameterTypes()[2]
+                            .getClassLoader(), new Class<?>[]{method.getParameterTypes()[2]}, IGNORE));
+                }
+                return true;
+            } catch (Exception ignored) {
+                // Fall back to loading it ourselves
+            }
+        }
+        return world.loadChunk(x, z, false);
+    }
+
+    /**
+     * Finds World.getChunkAtAsync(), which some servers add, either as
+     * (x, z) or as (x, z, callback).
+     *
+     * @return The method, or null if the server doesn't have it
+     */
+    private static synchronized Method getAsyncLoad() {
+        if (!searched) {
+            searched = true;
+            for (Method method : World.class.getMethods()) {
+                Class<?>[] parameters = method.getParameterTypes();
+                if (!method.getName().equals("getChunkAtAsync") || parameters.length < 2
+                        || parameters[0] != int.class || parameters[1] != int.class) {
+                    continue;
+                }
+                if (parameters.length == 2 || (parameters.length == 3 && parameters[2].isInterface())) {
+                    if (asyncLoad == null || parameters.length == 2) {
+                        asyncLoad = method;
+                    }
+                }
+            }
+        }
+        return asyncLoad;
+    }
+}
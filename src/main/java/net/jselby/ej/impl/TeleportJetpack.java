@@ -1,21 +1,33 @@
 package net.jselby.ej.impl;
 
+import net.jselby.ej.Settings;
 import net.jselby.ej.Utils;
+import net.jselby.ej.api.EasyJetpackAPI;
 import net.jselby.ej.api.FlightTypes;
 import net.jselby.ej.api.Jetpack;
 import net.jselby.ej.api.JetpackEvent;
 import org.bukkit.ChatColor;
-import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
 /**
  * A jetpack for teleporting around, using the power of ender pearls
  *
  * @author James
  */
 public class TeleportJetpack extends Jetpack {
+    /**
+     * How far away, in blocks, players can teleport to
+     */
+    static final int RANGE = 30;
+
+    // Players whose teleport hasn't happened yet
+    private final Set<UUID> pending = new HashSet<UUID>();
 
     @Override
     public String getName() {
@@ -31,37 +43,72 @@ public class TeleportJetpack extends Jetpack {
 
     @Override
     public Material getMaterial() {
-        return Material.getMaterial(getConfig().getString(
-                "jetpacks.teleport.material", "CHAINMAIL_CHESTPLATE"));
+        return getSettings().getTeleport().getMaterial();
     }
 
-    @SuppressWarnings("deprecation")
     @Override
     public void onFlyEvent(JetpackEvent event) {
-        Block block = event.getPlayer().getTargetBlock(null, 30);
-        if (block != null) {
-            Location loc = block.getLocation().add(0, 2, 0);
-            loc.setYaw(event.getPlayer().getLocation().getYaw());
-            loc.setPitch(event.getPlayer().getLocation().getPitch());
-            event.getPlayer().teleport(loc);
+        Player player = event.getPlayer();
+        if (!pending.add(player.getUniqueId())) {
+            return;
         }
+
+        Settings.JetpackSettings settings = getSettings().getTeleport();
+        new StagedTeleport(this, player, settings.isStaged(), settings.getTimeoutMillis()).start();
     }
 
     @Override
     public void onFuelUsageEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true))
-            event.getPlayer()
-                    .getInventory()
-                    .removeItem(
-                            new ItemStack(Material.getMaterial(getConfig()
-                                    .getString("fuel.material", "COAL")), 1));
-        if (getConfig().getBoolean("jetpacks.teleport.durability", true))
-            Utils.damage(event.getPlayer(), getSlot(), 150);
+        // Teleports are only charged for once they happen, by StagedTeleport,
+        // so one that can't find anywhere to land costs nothing
+    }
+
+    /**
+     * Takes the fuel and durability for a teleport
+     *
+     * @param player The player who is teleporting
+     * @return False if they no longer have fuel, or are no longer wearing
+     * this Jetpack
+     */
+    boolean charge(Player player) {
+        if (EasyJetpackAPI.getManager().getEquippedJetpack(player, getSlot()) != this) {
+            return false;
+        }
+
+        if (getSettings().isFuelEnabled()) {
+            if (!Utils.playerHasFuel(player)) {
+                player.sendMessage(ChatColor.RED + "You don't have enough fuel!");
+                return false;
+            }
+            player.getInventory().removeItem(new ItemStack(getSettings().getFuelMaterial(), 1));
+            EasyJetpackAPI.getManager().invalidateFuel(player);
+        }
+        if (getSettings().getTeleport().isDurability())
+            Utils.damage(player, getSlot(), 150);
+        return true;
+    }
+
+    /**
+     * Marks a player's teleport as finished, whether or not it happened
+     *
+     * @param player The player who was teleporting
+     */
+    void finished(Player player) {
+        pending.remove(player.getUniqueId());
     }
 
     @Override
     public boolean onFuelCheckEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
+        // Only one teleport can be on its way at a time
+        if (pending.contains(event.getPlayer().getUniqueId())) {
+            return false;
+        }
+        if (pending.size() >= getSettings().getTeleport().getMaxPending()) {
+            event.getPlayer().sendMessage(
+                    ChatColor.RED + "Too many players are teleporting, try again in a moment!");
+            return false;
+        }
+        if (getSettings().isFuelEnabled()) {
             boolean containsCoal = Utils.playerHasFuel(event.getPlayer());
             if (!containsCoal)
                 event.getPlayer().sendMessage(
@@ -76,9 +123,19 @@ public class TeleportJetpack extends Jetpack {
         return FlightTypes.CROUCH;
     }
 
+    @Override
+    public double getActivationRate() {
+        return getSettings().getTeleport().getRateLimit();
+    }
+
+    @Override
+    public int getActivationBurst() {
+        return getSettings().getTeleport().getRateLimitBurst();
+    }
+
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.teleport.craftable", true)) {
+        if (!getSettings().getTeleport().isCraftable()) {
             return null;
         }
 
@@ -109,6 +166,6 @@ public class TeleportJetpack extends Jetpack {
 
     @Override
     public boolean isRepairingDisabled() {
-        return getConfig().getBoolean("jetpacks.teleport.antianvil", true);
+        return getSettings().getTeleport().isAntiAnvil();
     }
 }
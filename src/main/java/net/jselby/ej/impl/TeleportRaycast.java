@@ -0,0 +1,305 @@
+package net.jselby.ej.impl;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.util.Vector;
+
+/**
+ * Finds where a Teleportation Jetpack should land. The chunks along where the
+ * player is looking are copied on the server thread by capture(), and the
+ * ray is then traced through those copies by trace(), which is safe to run on
+ * another thread. Chunks which aren't loaded are never loaded here; the ray
+ * stops at the first one, and if the ray reaches it, it is recorded as the
+ * chunk that is needed.
+ * <p/>
+ * A landing spot is a solid block with two blocks of air above it. The
+ * column that was hit is searched upwards first, so players climb onto the
+ * top of short walls, and then the column in front of the hit is searched
+ * downwards, so players looking at a tall wall land at its foot.
+ */
+class TeleportRaycast {
+    /**
+     * How far up the hit column a landing spot is searched for
+     */
+    private static final int MAX_CLIMB = 4;
+    /**
+     * How far down the column in front of the hit a landing spot is searched
+     * for
+     */
+    private static final int MAX_DROP = 8;
+    /**
+     * The most chunks a ray can pass through. A ray of 30 blocks can't cross
+     * more than four.
+     */
+    private static final int MAX_CHUNKS = 8;
+
+    private static final int AIR = 0;
+    private static final int SOLID = 1;
+    private static final int OTHER = 2;
+    private static final int UNKNOWN = 3;
+
+    private final World world;
+    private final double originX;
+    private final double originY;
+    private final double originZ;
+    private final double directionX;
+    private final double directionY;
+    private final double directionZ;
+    private final int range;
+
+    private final int[] chunkX = new int[MAX_CHUNKS];
+    private final int[] chunkZ = new int[MAX_CHUNKS];
+    private final ChunkSnapshot[] snapshots = new ChunkSnapshot[MAX_CHUNKS];
+    private int chunkCount;
+    private boolean missing;
+    private int missingX;
+    private int missingZ;
+    private boolean needsChunk;
+
+    private boolean found;
+    private int landingX;
+    private int landingY;
+    private int landingZ;
+
+    private TeleportRaycast(Location eye, int range) {
+        Vector direction = eye.getDirection();
+        this.world = eye.getWorld();
+        this.originX = eye.getX();
+        this.originY = eye.getY();
+        this.originZ = eye.getZ();
+        this.directionX = direction.getX();
+        this.directionY = direction.getY();
+        this.directionZ = direction.getZ();
+        this.range = range;
+    }
+
+    /**
+     * Copies the loaded chunks along a ray. This must be called on the server
+     * thread.
+     *
+     * @param eye   Where the ray starts, and the direction it goes in
+     * @param range How far the ray goes, in blocks
+     * @return A ray, ready to be traced
+     */
+    static TeleportRaycast capture(Location eye, int range) {
+        TeleportRaycast ray = new TeleportRaycast(eye, range);
+        Walker walker = ray.new Walker();
+        int lastX = Integer.MIN_VALUE;
+        int lastZ = Integer.MIN_VALUE;
+        do {
+            int x = walker.x >> 4;
+            int z = walker.z >> 4;
+            if (x == lastX && z == lastZ) {
+                continue;
+            }
+            lastX = x;
+            lastZ = z;
+
+            if (ray.chunkCount == MAX_CHUNKS) {
+                break;
+            } else if (!ray.world.isChunkLoaded(x, z)) {
+                ray.missing = true;
+                ray.missingX = x;
+                ray.missingZ = z;
+                break;
+            }
+            ray.chunkX[ray.chunkCount] = x;
+            ray.chunkZ[ray.chunkCount] = z;
+            ray.snapshots[ray.chunkCount] = ray.world.getChunkAt(x, z).getChunkSnapshot(false, false, false);
+            ray.chunkCount++;
+        } while (walker.next());
+        return ray;
+    }
+
+    /**
+     * Traces the ray through the copied chunks, and searches for somewhere
+     * safe to land near the first block it hits. This doesn't touch the
+     * world, so can be called from any thread. If the ray runs into a chunk
+     * that wasn't loaded, needsChunk() is true afterwards.
+     *
+     * @return If a landing spot was found
+     */
+    boolean trace() {
+        Walker walker = new Walker();
+        int previousX = walker.x;
+        int previousY = walker.y;
+        int previousZ = walker.z;
+        do {
+            int type = getType(walker.x, walker.y, walker.z);
+            if (type == UNKNOWN) {
+                needsChunk = missing && walker.x >> 4 == missingX && walker.z >> 4 == missingZ;
+                return false;
+            } else if (type != AIR) {
+                found = findLanding(walker.x, walker.y, walker.z, previousX, previousY, previousZ);
+                return found;
+            }
+
+            previousX = walker.x;
+            previousY = walker.y;
+            previousZ = walker.z;
+        } while (walker.next());
+        return false;
+    }
+
+    private boolean findLanding(int hitX, int hitY, int hitZ, int frontX, int frontY, int frontZ) {
+        for (int floor = hitY; floor <= hitY + MAX_CLIMB; floor++) {
+            if (isSafe(hitX, floor, hitZ)) {
+                return land(hitX, floor + 1, hitZ);
+            }
+        }
+        for (int floor = frontY - 1; floor >= frontY - 1 - MAX_DROP; floor--) {
+            if (isSafe(frontX, floor, frontZ)) {
+                return land(frontX, floor + 1, frontZ);
+            }
+        }
+        return false;
+    }
+
+    private boolean isSafe(int x, int floor, int z) {
+        return getType(x, floor, z) == SOLID
+                && getType(x, floor + 1, z) == AIR
+                && getType(x, floor + 2, z) == AIR;
+    }
+
+    private boolean land(int x, int y, int z) {
+        landingX = x;
+        landingY = y;
+        landingZ = z;
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private int getType(int x, int y, int z) {
+        if (y > 255) {
+            return AIR;
+        } else if (y < 0) {
+            return UNKNOWN;
+        }
+
+        int cx = x >> 4;
+        int cz = z >> 4;
+        for (int i = 0; i < chunkCount; i++) {
+            if (chunkX[i] == cx && chunkZ[i] == cz) {
+                int id = snapshots[i].getBlockTypeId(x & 15, y, z & 15);
+                if (id == 0) {
+                    return AIR;
+                }
+                Material material = Material.getMaterial(id);
+                return material != null && material.isSolid() ? SOLID : OTHER;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    World getWorld() {
+        return world;
+    }
+
+    /**
+     * Checks if trace() stopped at a chunk which wasn't loaded, so the ray
+     * should be captured and traced again once it is.
+     *
+     * @return If a chunk needs to be loaded
+     */
+    boolean needsChunk() {
+        return needsChunk;
+    }
+
+    int getMissingX() {
+        return missingX;
+    }
+
+    int getMissingZ() {
+        return missingZ;
+    }
+
+    int getLandingChunkX() {
+        return landingX >> 4;
+    }
+
+    int getLandingChunkZ() {
+        return landingZ >> 4;
+    }
+
+    /**
+     * Returns where the player should land, once trace() has found somewhere
+     *
+     * @param yaw   The yaw the player should face
+     * @param pitch The pitch the player should face
+     * @return A Location at the middle of the landing block, or null if
+     * nowhere was found
+     */
+    Location getLanding(float yaw, float pitch) {
+        if (!found) {
+            return null;
+        }
+        return new Location(world, landingX + 0.5, landingY, landingZ + 0.5, yaw, pitch);
+    }
+
+    /**
+     * Steps through every block the ray passes through, in order, using a
+     * voxel traversal rather than fixed steps, so no block is skipped.
+     */
+    private class Walker {
+        private int x;
+        private int y;
+        private int z;
+        private final int stepX;
+        private final int stepY;
+        private final int stepZ;
+        private double nextX;
+        private double nextY;
+        private double nextZ;
+        private final double deltaX;
+        private final double deltaY;
+        private final double deltaZ;
+
+        private Walker() {
+            x = floor(originX);
+            y = floor(originY);
+            z = floor(originZ);
+            stepX = directionX > 0 ? 1 : -1;
+            stepY = directionY > 0 ? 1 : -1;
+            stepZ = directionZ > 0 ? 1 : -1;
+            deltaX = directionX == 0 ? Double.MAX_VALUE : Math.abs(1 / directionX);
+            deltaY = directionY == 0 ? Double.MAX_VALUE : Math.abs(1 / directionY);
+            deltaZ = directionZ == 0 ? Double.MAX_VALUE : Math.abs(1 / directionZ);
+            nextX = directionX == 0 ? Double.MAX_VALUE
+                    : ((stepX > 0 ? x + 1 : x) - originX) / directionX;
+            nextY = directionY == 0 ? Double.MAX_VALUE
+                    : ((stepY > 0 ? y + 1 : y) - originY) / directionY;
+            nextZ = directionZ == 0 ? Double.MAX_VALUE
+                    : ((stepZ > 0 ? z + 1 : z) - originZ) / directionZ;
+        }
+
+        /**
+         * Moves onto the next block along the ray
+         *
+         * @return If the block is still within range
+         */
+        private boolean next() {
+            double travelled;
+            if (nextX <= nextY && nextX <= nextZ) {
+                travelled = nextX;
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                travelled = nextY;
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                travelled = nextZ;
+                z += stepZ;
+                nextZ += deltaZ;
+            }
+            return travelled <= range;
+        }
+    }
+
+    private static int floor(double value) {
+        int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+}
@@ -1,5 +1,6 @@
 package net.jselby.ej.impl;
 
+import net.jselby.ej.FlightPhysics;
 import net.jselby.ej.Utils;
 import net.jselby.ej.VisualCandy;
 import net.jselby.ej.api.FlightTypes;
@@ -7,7 +8,6 @@ import net.jselby.ej.api.Jetpack;
 import net.jselby.ej.api.JetpackEvent;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.util.Vector;
 
 /**
  * A legacy Jetpack from a older version of the plugin. Also maintains
@@ -16,6 +16,8 @@ import org.bukkit.util.Vector;
  * @author James
  */
 public class TraditionalJetpack extends Jetpack {
+    private static final FlightPhysics.Params FLIGHT = FlightPhysics.Params.builder()
+            .thrust(0.8D).lift(0.8D).clamp(0.45, 0.6, Double.MAX_VALUE).unitSpeed().build();
 
     @Override
     public String getName() {
@@ -32,32 +34,28 @@ public class TraditionalJetpack extends Jetpack {
 
     @Override
     public Material getMaterial() {
-        return Material.getMaterial(getConfig().getString(
-                "jetpacks.traditional.material", "GOLD_CHESTPLATE"));
+        return getSettings().getTraditional().getMaterial();
     }
 
     @Override
     public void onFlyEvent(JetpackEvent event) {
-        Vector dir = event.getPlayer().getLocation().getDirection();
-        event.getPlayer().setVelocity(
-                Utils.addVector(event.getPlayer(), new Vector(
-                        dir.getX() * 0.8D, 0.8D, dir.getZ() * 0.8D), 0.45, 0.6, 0.45));
+        Utils.fly(event.getPlayer(), FLIGHT);
 
         VisualCandy.jetpackEffect(event.getPlayer());
     }
 
     @Override
     public void onFuelUsageEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
+        if (getSettings().isFuelEnabled()) {
             Utils.useFuel(event.getPlayer(), false, 1);
         }
-        if (getConfig().getBoolean("jetpacks.traditional.durability", true))
+        if (getSettings().getTraditional().isDurability())
             Utils.damage(event.getPlayer(), getSlot(), 150);
     }
 
     @Override
     public boolean onFuelCheckEvent(JetpackEvent event) {
-        if (getConfig().getBoolean("fuel.enabled", true)) {
+        if (getSettings().isFuelEnabled()) {
             boolean containsCoal = Utils.playerHasFuel(event.getPlayer());
             if (!containsCoal)
                 event.getPlayer().sendMessage(
@@ -72,9 +70,19 @@ public class TraditionalJetpack extends Jetpack {
         return FlightTypes.CROUCH;
     }
 
+    @Override
+    public double getActivationRate() {
+        return getSettings().getTraditional().getRateLimit();
+    }
+
+    @Override
+    public int getActivationBurst() {
+        return getSettings().getTraditional().getRateLimitBurst();
+    }
+
     @Override
     public CraftingRecipe getCraftingRecipe() {
-        if (!getConfig().getBoolean("jetpacks.traditional.craftable", true)) {
+        if (!getSettings().getTraditional().isCraftable()) {
             return null;
         }
 
@@ -97,6 +105,6 @@ public class TraditionalJetpack extends Jetpack {
 
     @Override
     public boolean isRepairingDisabled() {
-        return getConfig().getBoolean("jetpacks.traditional.antianvil", true);
+        return getSettings().getTraditional().isAntiAnvil();
     }
 }
@@ -0,0 +1,65 @@
+package net.jselby.ej;
+
+import net.jselby.ej.api.FlightTypes;
+import net.jselby.ej.api.JetpackEvent;
+import org.bukkit.event.Cancellable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks when the server's event is cancelled for a JetpackEvent. With
+ * dispatch.coalesce on, crouches and clicks are reported as handled when they
+ * are collected, so they have to be cancelled from that, as well as from the
+ * JetpackEvent.
+ */
+public class FlightListenersTest {
+    private static class Base implements Cancellable {
+        private boolean cancelled;
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCancelled(boolean cancel) {
+            cancelled = cancel;
+        }
+    }
+
+    private static boolean cancels(FlightTypes type, boolean handled, boolean eventCancelled) {
+        JetpackEvent event = new JetpackEvent(null, type, null, null);
+        event.setCancelled(eventCancelled);
+        Base base = new Base();
+        FlightListeners.cancelIfHandled(handled, event, base);
+        return base.isCancelled();
+    }
+
+    @Test
+    public void handledCrouchesAndClicksAreCancelled() {
+        assertTrue(cancels(FlightTypes.CROUCH, true, false));
+        assertTrue(cancels(FlightTypes.INTERACT, true, false));
+    }
+
+    @Test
+    public void unhandledCrouchesAndClicksAreNot() {
+        assertFalse(cancels(FlightTypes.CROUCH, false, false));
+        assertFalse(cancels(FlightTypes.INTERACT, false, false));
+    }
+
+    @Test
+    public void cancelledJetpackEventsAreCancelled() {
+        assertTrue(cancels(FlightTypes.INTERACT, false, true));
+        assertTrue(cancels(FlightTypes.FALLING, false, true));
+        assertTrue(cancels(FlightTypes.DAMAGED_BY_PLAYER, true, true));
+    }
+
+    @Test
+    public void otherHandledEventsAreOnlyCancelledByTheJetpack() {
+        assertFalse(cancels(FlightTypes.FALLING, true, false));
+        assertFalse(cancels(FlightTypes.DAMAGED_BY_PLAYER, true, false));
+        assertFalse(cancels(FlightTypes.ANVIL, true, false));
+    }
+}
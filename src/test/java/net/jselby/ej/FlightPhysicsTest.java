@@ -0,0 +1,179 @@
+package net.jselby.ej;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the flight model without a server. A yaw of -90 looks along +X, so
+ * thrust only moves the player on the X axis.
+ */
+public class FlightPhysicsTest {
+    private static final double DELTA = 1e-9;
+    private static final float EAST = -90;
+
+    private static FlightPhysics.State step(FlightPhysics.Params params,
+                                            double x, double y, double z) {
+        FlightPhysics.State state = new FlightPhysics.State();
+        state.setVelocity(x, y, z);
+        FlightPhysics.step(params, state, EAST, 0);
+        return state;
+    }
+
+    @Test
+    public void clampLimitsEachAxis() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .thrust(1).lift(0.8).clamp(0.45, 0.6, Double.MAX_VALUE).build();
+        FlightPhysics.State state = step(params, 0, 0, 0.9);
+
+        assertEquals(0.45, state.getX(), DELTA);
+        assertEquals(0.6, state.getY(), DELTA);
+        assertEquals(0.45, state.getZ(), DELTA);
+    }
+
+    @Test
+    public void clampLimitsFalling() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .clamp(1, 1, 0.5).build();
+        FlightPhysics.State state = step(params, -3, -3, 0);
+
+        assertEquals(-1, state.getX(), DELTA);
+        assertEquals(-0.5, state.getY(), DELTA);
+    }
+
+    @Test
+    public void boostLiftStartsFromTheMinimum() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .boostLift(0.3, 1.3, 10).build();
+
+        // Standing still, the lift builds from 0.3
+        assertEquals(0.39, step(params, 0, 0, 0).getY(), DELTA);
+        // Falling, it still does
+        assertEquals(-0.5 + 0.39, step(params, 0, -0.5, 0).getY(), DELTA);
+    }
+
+    @Test
+    public void boostLiftBuildsOnVerticalSpeed() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .boostLift(0.3, 1.3, 10).build();
+        assertEquals(1 + 1.3, step(params, 0, 1, 0).getY(), DELTA);
+
+        FlightPhysics.Params capped = FlightPhysics.Params.builder()
+                .boostLift(0.3, 1.3, 0.5).build();
+        assertEquals(1 + 0.5, step(capped, 0, 1, 0).getY(), DELTA);
+    }
+
+    @Test
+    public void hoverHoldStopsVerticalMovement() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .clamp(0, 0, 0).hoverHold().build();
+        FlightPhysics.State state = step(params, 0.2, -0.0784, -0.2);
+
+        assertEquals(0, state.getX(), DELTA);
+        assertEquals(0, state.getY(), DELTA);
+        assertEquals(0, state.getZ(), DELTA);
+    }
+
+    @Test
+    public void hoverHoldKeepsHorizontalMovement() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .thrust(0.5).lift(1).hoverHold().build();
+        FlightPhysics.State state = step(params, 0, -0.0784, 0);
+
+        assertEquals(0.5, state.getX(), DELTA);
+        assertEquals(0, state.getY(), DELTA);
+    }
+
+    @Test
+    public void unitSpeedScalesToOneBlockPerTick() {
+        FlightPhysics.Params params = FlightPhysics.Params.builder()
+                .thrust(0.8).lift(0.8).clamp(0.45, 0.6, Double.MAX_VALUE).unitSpeed().build();
+        FlightPhysics.State state = step(params, 0, 0, 0);
+
+        assertEquals(0.6, state.getX(), DELTA);
+        assertEquals(0.8, state.getY(), DELTA);
+        assertEquals(0, state.getZ(), DELTA);
+    }
+
+    @Test
+    public void builtParamsDontChange() {
+        FlightPhysics.Params.Builder builder = FlightPhysics.Params.builder().lift(0.5);
+        FlightPhysics.Params params = builder.build();
+        builder.lift(2);
+
+        assertEquals(0.5, step(params, 0, 0, 0).getY(), DELTA);
+    }
+
+    @Test
+    public void hoveringHoldsHeightUnderGravity() {
+        FlightPhysics.Params hold = FlightPhysics.Params.builder()
+                .clamp(0, 0, 0).hoverHold().build();
+        FlightPhysics.State state = new FlightPhysics.State();
+
+        double height = 0;
+        double velocity = 0;
+        for (long tick = 1; tick <= 100; tick++) {
+            state.setVelocity(0, velocity, 0);
+            FlightPhysics.step(hold, state, EAST, 0);
+            if (state.needsSending(0, velocity, 0, tick, 0.01, 5)) {
+                state.markSent(tick);
+                velocity = state.getY();
+            }
+
+            // The player moves, and then gravity and drag are applied
+            height += velocity;
+            velocity = (velocity - 0.08) * 0.98;
+            assertEquals(0, height, DELTA);
+        }
+    }
+
+    @Test
+    public void steadyVelocityIsOnlySentEachRefresh() {
+        FlightPhysics.Params glide = FlightPhysics.Params.builder()
+                .clamp(0.5, 0, 0).build();
+        FlightPhysics.State state = new FlightPhysics.State();
+
+        int sent = 0;
+        for (long tick = 1; tick <= 100; tick++) {
+            // Nothing slows the player down, so they keep the velocity sent
+            state.setVelocity(0.5, 0, 0);
+            FlightPhysics.step(glide, state, EAST, 0);
+            if (state.needsSending(0.5, 0, 0, tick, 0.01, 5)) {
+                state.markSent(tick);
+                sent++;
+            }
+        }
+        assertEquals(100 / 5, sent);
+    }
+
+    @Test
+    public void changedVelocityIsSentStraightAway() {
+        FlightPhysics.State state = new FlightPhysics.State();
+        state.setVelocity(0, 0, 0);
+        state.markSent(1);
+
+        state.setVelocity(0, 0.005, 0);
+        assertFalse(state.needsSending(0, 0, 0, 2, 0.01, 5));
+        state.setVelocity(0.5, 0, 0);
+        assertTrue(state.needsSending(0, 0, 0, 2, 0.01, 5));
+    }
+
+    @Test
+    public void driftedVelocityIsSentAgain() {
+        FlightPhysics.State state = new FlightPhysics.State();
+        state.setVelocity(0, 1, 0);
+        state.markSent(1);
+
+        // The output is the same, but the player has slowed down since
+        assertTrue(state.needsSending(0, 0.6, 0, 2, 0.01, 5));
+    }
+
+    @Test
+    public void negativeEpsilonAlwaysSends() {
+        FlightPhysics.State state = new FlightPhysics.State();
+        state.markSent(1);
+        assertTrue(state.needsSending(0, 0, 0, 1, -1, 5));
+    }
+}